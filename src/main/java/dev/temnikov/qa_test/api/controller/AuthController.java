@@ -1,10 +1,16 @@
 package dev.temnikov.qa_test.api.controller;
 
 import dev.temnikov.qa_test.security.JwtTokenService;
+import dev.temnikov.qa_test.security.RefreshTokenService;
+import dev.temnikov.qa_test.security.SecurityUser;
+import dev.temnikov.qa_test.security.TokenRevocations;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -31,14 +37,20 @@ public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final JwtTokenService jwtTokenService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocations tokenRevocations;
 
     @Operation(
             summary = "Login and obtain JWT",
             description = """
-                    Authenticates a user using email and password and returns a JWT token.
+                    Authenticates a user using email and password and returns a JWT token
+                    together with a refresh token.
                     
                     This endpoint itself does NOT require prior authentication.
                     The returned token can be used as Bearer token for subsequent requests.
+                    When it expires, call /api/auth/refresh instead of logging in again.
+                    
+                    Returns 429 with Retry-After when too many sign-ins are being verified at once.
                     """,
             security = {} // override global security, login is public
     )
@@ -50,12 +62,70 @@ public class AuthController {
 
         Authentication authentication = authenticationManager.authenticate(authToken);
 
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String token = jwtTokenService.generateToken(userDetails);
+        SecurityUser principal = (SecurityUser) authentication.getPrincipal();
+        return toResponse(principal, refreshTokenService.issue(principal.getUser()));
+    }
+
+    @Operation(
+            summary = "Exchange a refresh token for a new JWT",
+            description = """
+                    Returns a new JWT and a new refresh token; the presented refresh token becomes invalid.
+                    
+                    No password check is involved. Presenting a refresh token a second time is treated
+                    as theft: every refresh token descending from the same login is revoked and the
+                    user has to log in again.
+                    """,
+            security = {}
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "New tokens issued"),
+            @ApiResponse(responseCode = "401", description = "Refresh token is unknown, expired or was already used")
+    })
+    @PostMapping("/refresh")
+    @ResponseStatus(HttpStatus.OK)
+    public AuthResponse refresh(@RequestBody RefreshRequest request) {
+        RefreshTokenService.Refreshed refreshed = refreshTokenService.rotate(request.getRefreshToken());
+        return toResponse(new SecurityUser(refreshed.user()), refreshed.refreshToken());
+    }
+
+    @Operation(
+            summary = "Log out",
+            description = """
+                    Revokes the Bearer token of this request before it expires.
+                    If a refresh token is given in the body, it and every refresh token issued since
+                    the same login are revoked too.
+                    
+                    Other instances learn about the revocation by polling and may still accept the
+                    access token for about `security.revocation.poll-interval-millis` (1 s by default).
+                    
+                    Requires authentication.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Tokens revoked"),
+            @ApiResponse(responseCode = "401", description = "Authentication required")
+    })
+    @PostMapping("/logout")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void logout(@RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                       @RequestBody(required = false) RefreshRequest request) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            // already verified by the JWT filter, this is a cache hit
+            tokenRevocations.revokeToken(jwtTokenService.verify(authorization.substring(7).trim()));
+        }
+        if (request != null && request.getRefreshToken() != null) {
+            refreshTokenService.revoke(request.getRefreshToken());
+        }
+    }
+
+    private AuthResponse toResponse(UserDetails userDetails, RefreshTokenService.IssuedRefreshToken refreshToken) {
+        JwtTokenService.IssuedToken issued = jwtTokenService.generateToken(userDetails);
 
         AuthResponse response = new AuthResponse();
-        response.setToken(token);
-        response.setExpiresAt(jwtTokenService.extractExpirationEpochSeconds(token));
+        response.setToken(issued.token());
+        response.setExpiresAt(issued.expiresAt().getEpochSecond());
+        response.setRefreshToken(refreshToken.token());
+        response.setRefreshExpiresAt(refreshToken.expiresAtEpochSecond());
         return response;
     }
 
@@ -65,9 +135,16 @@ public class AuthController {
         private String password;
     }
 
+    @Data
+    public static class RefreshRequest {
+        private String refreshToken;
+    }
+
     @Data
     public static class AuthResponse {
         private String token;
         private long expiresAt; // epoch seconds
+        private String refreshToken;
+        private long refreshExpiresAt; // epoch seconds
     }
 }
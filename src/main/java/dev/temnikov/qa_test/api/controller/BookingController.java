@@ -1,12 +1,21 @@
 package dev.temnikov.qa_test.api.controller;
 
+import dev.temnikov.qa_test.api.dto.CursorPage;
+import dev.temnikov.qa_test.api.dto.RequestBookingBatchDto;
+import dev.temnikov.qa_test.api.dto.RequestBookingBulkStatusDto;
 import dev.temnikov.qa_test.api.dto.RequestBookingDto;
+import dev.temnikov.qa_test.api.dto.ResponseBookingBatchDto;
+import dev.temnikov.qa_test.api.dto.ResponseBookingBulkStatusDto;
 import dev.temnikov.qa_test.api.dto.ResponseBookingDto;
 import dev.temnikov.qa_test.api.dto.PageResponse;
+import dev.temnikov.qa_test.api.dto.ResponseChangesDto;
+import dev.temnikov.qa_test.api.idempotency.IdempotencyStore;
+import dev.temnikov.qa_test.api.pagination.TotalMode;
 import dev.temnikov.qa_test.entity.User;
 import dev.temnikov.qa_test.security.SecurityUser;
+import dev.temnikov.qa_test.service.BookingCommandService;
 import dev.temnikov.qa_test.service.BookingService;
-import dev.temnikov.qa_test.service.UserService;
+import dev.temnikov.qa_test.service.BookingWriteBulkhead;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -20,9 +29,13 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 
 @Tag(
         name = "Bookings",
@@ -43,7 +56,9 @@ import org.springframework.web.bind.annotation.*;
 public class BookingController {
 
     private final BookingService bookingService;
-    private final UserService userService;
+    private final BookingCommandService bookingCommandService;
+    private final BookingWriteBulkhead bookingWriteBulkhead;
+    private final IdempotencyStore idempotencyStore;
 
     @Operation(
             summary = "List bookings (paginated)",
@@ -54,27 +69,87 @@ public class BookingController {
                     - page: zero-based page index (default 0)
                     - size: page size (default 20)
                     - sort: field and direction (e.g. sort=id,asc or sort=startTime,desc)
+                    - withTotal: true (default) counts all rows, false skips the count query
+                      (totals are null), cached reuses a count refreshed every few seconds
                     
                     Requires authentication (USER / TRAINER / ADMIN).
                     """
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Bookings returned successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid withTotal value"),
             @ApiResponse(responseCode = "401", description = "Authentication required")
     })
     @GetMapping
     public PageResponse<ResponseBookingDto> getAll(
             @ParameterObject
             @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC)
-            Pageable pageable
+            Pageable pageable,
+            @RequestParam(defaultValue = "true") String withTotal
+    ) {
+        return bookingService.getAll(pageable, TotalMode.fromParam(withTotal));
+    }
+
+    @GetMapping(params = "cursor")
+    @Operation(
+            summary = "List bookings (keyset pagination)",
+            description = """
+                    Cursor-based alternative to the paginated list; selected by the presence of `cursor`.
+                    Pages are read with a seek condition on (sort key, id) instead of OFFSET,
+                    and no total count is computed.
+                    
+                    Query parameters:
+                    - cursor: empty for the first page, then the `next` or `prev` value of a previous response
+                    - size: page size (default 20, max 1000)
+                    
+                    Requires authentication (USER / TRAINER / ADMIN).
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Bookings returned"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or size"),
+            @ApiResponse(responseCode = "401", description = "Authentication required")
+    })
+    public CursorPage<ResponseBookingDto> getAllByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size
     ) {
-        return bookingService.getAll(pageable);
+        return bookingService.getAllByCursor(cursor, size);
+    }
+
+    @GetMapping("/changes")
+    @Operation(
+            summary = "Bookings changed since a sync token",
+            description = """
+                    Delta sync for polling clients.
+                    
+                    Returns bookings created or updated after `since`, ids of bookings deleted after it,
+                    and the token to use next time. Omit `since` for a full initial sync.
+                    
+                    At most 500 rows are returned per call (rows written by one transaction are
+                    never split); when `hasMore` is true, call again with `next` right away.
+                    Writes appear about `changes.mark-interval-millis` after they commit; a
+                    long-running write holds back the ones after it until it finishes.
+                    A token the server does not know, or one older than the tombstone retention
+                    (`changes.tombstone-retention-days`), yields 410 and the client should start over.
+                    
+                    Requires authentication (USER / TRAINER / ADMIN).
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Changes returned"),
+            @ApiResponse(responseCode = "401", description = "Authentication required"),
+            @ApiResponse(responseCode = "410", description = "Unknown or expired sync token")
+    })
+    public ResponseChangesDto<ResponseBookingDto> getChanges(@RequestParam(required = false) Long since) {
+        return bookingService.getChanges(since);
     }
 
     @Operation(
             summary = "Get booking by ID",
             description = """
                     Returns a specific booking.
+                    For WAITLISTED bookings waitlistPosition holds the 1-based place in the session queue.
                     
                     Requires authentication.
                     """
@@ -99,27 +174,86 @@ public class BookingController {
                     - Caller must either be the booking owner or have ADMIN role.
                       * If userId is omitted in the payload, the current user is assumed.
                       * If userId is provided, the caller must match or be ADMIN.
+                    - If the session is full:
+                      * without waitlist=true the request fails with 409;
+                      * with waitlist=true the booking is created as WAITLISTED and
+                        promoted to PENDING automatically when a seat frees up.
+                    
+                    Optional Idempotency-Key header: retries with the same key and payload
+                    return the original booking instead of creating a new one.
                     
                     Requires authentication.
                     """
     )
     @ApiResponses({
-            @ApiResponse(responseCode = "201", description = "Booking created",
+            @ApiResponse(responseCode = "201", description = "Booking created (PENDING, or WAITLISTED with its position)",
                     content = @Content(schema = @Schema(implementation = ResponseBookingDto.class))),
             @ApiResponse(responseCode = "400", description = "Invalid input or session is not in the future"),
             @ApiResponse(responseCode = "401", description = "Authentication required"),
             @ApiResponse(responseCode = "403", description = "Not allowed to create booking for the specified user"),
-            @ApiResponse(responseCode = "409", description = "Session capacity reached")
+            @ApiResponse(responseCode = "409", description = "Session capacity reached"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key reused with a different payload"),
+            @ApiResponse(responseCode = "503", description = "Too many booking writes in progress, retry after Retry-After")
     })
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public ResponseBookingDto create(
             @RequestBody RequestBookingDto dto,
+            @Parameter(description = "Join the session waitlist instead of failing when the session is full")
+            @RequestParam(name = "waitlist", defaultValue = "false") boolean waitlist,
+            @Parameter(description = "Client-generated key that makes retries safe")
+            @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey,
             @Parameter(hidden = true)
             @AuthenticationPrincipal SecurityUser principal
     ) {
-        User currentUser = userService.getEntityByEmail(principal.getUsername());
-        return bookingService.create(dto, currentUser);
+        if (idempotencyKey == null) {
+            return doCreate(dto, waitlist, principal);
+        }
+        return idempotencyStore.execute(
+                principal.getUsername() + ":" + idempotencyKey,
+                "POST /api/bookings " + dto + " waitlist=" + waitlist,
+                () -> doCreate(dto, waitlist, principal)
+        );
+    }
+
+    private ResponseBookingDto doCreate(RequestBookingDto dto, boolean waitlist, SecurityUser principal) {
+        User currentUser = principal.getUser();
+        return bookingWriteBulkhead.execute(() -> await(bookingCommandService.create(dto, currentUser, waitlist)));
+    }
+
+    @Operation(
+            summary = "Create several bookings at once",
+            description = """
+                    Books a list of sessions in one call (e.g. every session of a multi-week course).
+                    
+                    Each item follows the same rules as POST /api/bookings.
+                    Modes:
+                    - ALL_OR_NOTHING (default): nothing is created unless every item succeeds.
+                    - PARTIAL: every valid item is created, failures are reported per item.
+                    
+                    At most 200 items per request.
+                    
+                    Requires authentication.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "All bookings created",
+                    content = @Content(schema = @Schema(implementation = ResponseBookingBatchDto.class))),
+            @ApiResponse(responseCode = "207", description = "Some or all items failed, see per-item status",
+                    content = @Content(schema = @Schema(implementation = ResponseBookingBatchDto.class))),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized batch"),
+            @ApiResponse(responseCode = "401", description = "Authentication required")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<ResponseBookingBatchDto> createBatch(
+            @RequestBody RequestBookingBatchDto dto,
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal SecurityUser principal
+    ) {
+        User currentUser = principal.getUser();
+        ResponseBookingBatchDto result = bookingWriteBulkhead.execute(() -> bookingService.createBatch(dto, currentUser));
+        HttpStatus status = result.failed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(result);
     }
 
     @Operation(
@@ -143,7 +277,60 @@ public class BookingController {
     @PatchMapping("/{id}/status")
     public ResponseBookingDto updateStatus(@PathVariable Long id,
                                            @RequestParam("status") String status) {
-        return bookingService.updateStatus(id, status);
+        return bookingWriteBulkhead.execute(() -> await(bookingCommandService.updateStatus(id, status)));
+    }
+
+    @Operation(
+            summary = "Update status of several bookings",
+            description = """
+                    Applies one status to a list of bookings in a few database round-trips.
+                    
+                    Allowed transitions:
+                    - PENDING -> CONFIRMED or CANCELLED
+                    - CONFIRMED -> CANCELLED
+                    - WAITLISTED -> CANCELLED
+                    Bookings already in the target status are reported as unchanged (200).
+                    Other transitions are reported per booking with 409.
+                    
+                    At most 200 ids per request.
+                    
+                    Requires authentication.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Per-booking outcomes returned",
+                    content = @Content(schema = @Schema(implementation = ResponseBookingBulkStatusDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid status, empty or oversized id list"),
+            @ApiResponse(responseCode = "401", description = "Authentication required")
+    })
+    @PatchMapping("/status")
+    public ResponseBookingBulkStatusDto updateStatuses(@RequestBody RequestBookingBulkStatusDto dto) {
+        return bookingWriteBulkhead.execute(() -> bookingService.updateStatuses(dto));
+    }
+
+    @Operation(
+            summary = "Confirm all pending bookings of a session",
+            description = """
+                    Moves every PENDING booking of the session to CONFIRMED in one statement.
+                    
+                    Access: ADMIN or the trainer of the session's course.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Bookings confirmed",
+                    content = @Content(schema = @Schema(implementation = ResponseBookingBulkStatusDto.class))),
+            @ApiResponse(responseCode = "401", description = "Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Caller is neither ADMIN nor the course trainer"),
+            @ApiResponse(responseCode = "404", description = "Session not found")
+    })
+    @PatchMapping("/sessions/{sessionId}/confirm")
+    public ResponseBookingBulkStatusDto confirmSession(
+            @PathVariable Long sessionId,
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal SecurityUser principal
+    ) {
+        User currentUser = principal.getUser();
+        return bookingWriteBulkhead.execute(() -> bookingService.confirmSession(sessionId, currentUser));
     }
 
     @Operation(
@@ -155,6 +342,8 @@ public class BookingController {
                     - Session must start in the future.
                     - Only owning user or ADMIN may cancel.
                     
+                    Optional Idempotency-Key header: retries with the same key return the original result.
+                    
                     Requires authentication.
                     """
     )
@@ -164,16 +353,31 @@ public class BookingController {
             @ApiResponse(responseCode = "400", description = "Session is not in the future"),
             @ApiResponse(responseCode = "401", description = "Authentication required"),
             @ApiResponse(responseCode = "403", description = "Not allowed to cancel booking"),
-            @ApiResponse(responseCode = "404", description = "Booking not found")
+            @ApiResponse(responseCode = "404", description = "Booking not found"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key reused for a different booking"),
+            @ApiResponse(responseCode = "503", description = "Too many booking writes in progress, retry after Retry-After")
     })
     @PatchMapping("/{id}/cancel")
     public ResponseBookingDto cancel(
             @PathVariable Long id,
+            @Parameter(description = "Client-generated key that makes retries safe")
+            @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey,
             @Parameter(hidden = true)
             @AuthenticationPrincipal SecurityUser principal
     ) {
-        User currentUser = userService.getEntityByEmail(principal.getUsername());
-        return bookingService.cancel(id, currentUser);
+        if (idempotencyKey == null) {
+            return doCancel(id, principal);
+        }
+        return idempotencyStore.execute(
+                principal.getUsername() + ":" + idempotencyKey,
+                "PATCH /api/bookings/" + id + "/cancel",
+                () -> doCancel(id, principal)
+        );
+    }
+
+    private ResponseBookingDto doCancel(Long id, SecurityUser principal) {
+        User currentUser = principal.getUser();
+        return bookingWriteBulkhead.execute(() -> await(bookingCommandService.cancel(id, currentUser)));
     }
 
     @Operation(
@@ -192,6 +396,20 @@ public class BookingController {
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void delete(@PathVariable Long id) {
-        bookingService.delete(id);
+        bookingWriteBulkhead.execute(() -> bookingService.delete(id));
+    }
+
+    /**
+     * Keeps the endpoints synchronous for clients while commands run on their session shard.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
     }
 }
@@ -1,12 +1,14 @@
 package dev.temnikov.qa_test.api.controller;
 
+import dev.temnikov.qa_test.api.dto.CursorPage;
 import dev.temnikov.qa_test.api.dto.RequestCourseDto;
 import dev.temnikov.qa_test.api.dto.ResponseCourseDto;
 import dev.temnikov.qa_test.api.dto.PageResponse;
+import dev.temnikov.qa_test.api.pagination.TotalMode;
 import dev.temnikov.qa_test.entity.User;
 import dev.temnikov.qa_test.security.SecurityUser;
 import dev.temnikov.qa_test.service.CourseService;
-import dev.temnikov.qa_test.service.UserService;
+import dev.temnikov.qa_test.service.ResourceVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -20,6 +22,7 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/courses")
@@ -39,7 +42,7 @@ import org.springframework.web.bind.annotation.*;
 public class CourseController {
 
     private final CourseService courseService;
-    private final UserService userService;
+    private final ResourceVersions resourceVersions;
 
     @GetMapping
     @Operation(
@@ -49,20 +52,61 @@ public class CourseController {
                     
                     Query parameters:
                     - page, size, sort (e.g. sort=name,asc)
+                    - withTotal: true (default) counts all rows, false skips the count query
+                      (totals are null), cached reuses a count refreshed every few seconds
                     
                     Access: USER / TRAINER / ADMIN.
                     """
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Courses returned"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid withTotal value"),
             @ApiResponse(responseCode = "401", description = "Authentication required")
     })
     public PageResponse<ResponseCourseDto> getAll(
             @ParameterObject
             @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC)
-            Pageable pageable
+            Pageable pageable,
+            @RequestParam(defaultValue = "true") String withTotal,
+            WebRequest webRequest
     ) {
-        return courseService.getAll(pageable);
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.COURSES))) {
+            return null;
+        }
+        return courseService.getAll(pageable, TotalMode.fromParam(withTotal));
+    }
+
+    @GetMapping(params = "cursor")
+    @Operation(
+            summary = "List courses (keyset pagination)",
+            description = """
+                    Cursor-based alternative to the paginated list; selected by the presence of `cursor`.
+                    Pages are read with a seek condition on (sort key, id) instead of OFFSET,
+                    and no total count is computed.
+                    
+                    Query parameters:
+                    - cursor: empty for the first page, then the `next` or `prev` value of a previous response
+                    - size: page size (default 20, max 1000)
+                    
+                    Access: USER / TRAINER / ADMIN.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Courses returned"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or size"),
+            @ApiResponse(responseCode = "401", description = "Authentication required")
+    })
+    public CursorPage<ResponseCourseDto> getAllByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest webRequest
+    ) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.COURSES))) {
+            return null;
+        }
+        return courseService.getAllByCursor(cursor, size);
     }
 
     @Operation(
@@ -75,11 +119,15 @@ public class CourseController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Course found"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "401", description = "Authentication required"),
             @ApiResponse(responseCode = "404", description = "Course not found")
     })
     @GetMapping("/{id}")
-    public ResponseCourseDto getById(@PathVariable Long id) {
+    public ResponseCourseDto getById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.COURSES))) {
+            return null;
+        }
         return courseService.getById(id);
     }
 
@@ -107,7 +155,7 @@ public class CourseController {
     public ResponseCourseDto create(@RequestBody RequestCourseDto dto,
                             @Parameter(hidden = true)
                             @AuthenticationPrincipal SecurityUser principal) {
-        User currentUser = userService.getEntityByEmail(principal.getUsername());
+        User currentUser = principal.getUser();
         return courseService.create(dto, currentUser);
     }
 
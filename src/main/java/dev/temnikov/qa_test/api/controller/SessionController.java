@@ -1,20 +1,37 @@
 package dev.temnikov.qa_test.api.controller;
 
+import dev.temnikov.qa_test.api.dto.CursorPage;
+import dev.temnikov.qa_test.api.dto.ResponseBookedCountsDto;
 import dev.temnikov.qa_test.api.dto.RequestSessionDto;
+import dev.temnikov.qa_test.api.dto.RequestSessionSeriesDto;
 import dev.temnikov.qa_test.api.dto.ResponseSessionDto;
+import dev.temnikov.qa_test.service.OccupancyHub;
+import dev.temnikov.qa_test.service.ResourceVersions;
 import dev.temnikov.qa_test.service.SessionService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import dev.temnikov.qa_test.api.dto.PageResponse;
+import dev.temnikov.qa_test.api.dto.ResponseChangesDto;
+import dev.temnikov.qa_test.api.dto.SessionOccupancyDto;
+import dev.temnikov.qa_test.api.pagination.TotalMode;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.domain.Sort;
 import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/sessions")
@@ -37,6 +54,8 @@ import org.springdoc.core.annotations.ParameterObject;
 public class SessionController {
 
     private final SessionService sessionService;
+    private final ResourceVersions resourceVersions;
+    private final OccupancyHub occupancyHub;
 
     @GetMapping
     @Operation(
@@ -46,20 +65,157 @@ public class SessionController {
 
                     Query parameters:
                     - page, size, sort (e.g. sort=startTime,asc)
+                    - withTotal: true (default) counts all rows, false skips the count query
+                      (totals are null), cached reuses a count refreshed every few seconds
 
                     Access: USER / TRAINER / ADMIN.
                     """
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Sessions returned"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid withTotal value"),
             @ApiResponse(responseCode = "401", description = "Authentication required")
     })
     public PageResponse<ResponseSessionDto> getAll(
             @ParameterObject
             @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC)
-            Pageable pageable
+            Pageable pageable,
+            @RequestParam(defaultValue = "true") String withTotal,
+            WebRequest webRequest
+    ) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.SESSIONS))) {
+            return null;
+        }
+        return sessionService.getAll(pageable, TotalMode.fromParam(withTotal));
+    }
+
+    @GetMapping(params = "cursor")
+    @Operation(
+            summary = "List sessions (keyset pagination)",
+            description = """
+                    Cursor-based alternative to the paginated list; selected by the presence of `cursor`.
+                    Pages are read with a seek condition on (sort key, id) instead of OFFSET,
+                    and no total count is computed.
+                    
+                    Query parameters:
+                    - cursor: empty for the first page, then the `next` or `prev` value of a previous response
+                    - size: page size (default 20, max 1000)
+                    - sort: id (default) or startTime; a cursor only works with the sort it was issued for
+                    
+                    Access: USER / TRAINER / ADMIN.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Sessions returned"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or size"),
+            @ApiResponse(responseCode = "401", description = "Authentication required")
+    })
+    public CursorPage<ResponseSessionDto> getAllByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            WebRequest webRequest
+    ) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.SESSIONS))) {
+            return null;
+        }
+        return sessionService.getAllByCursor(cursor, size, sort);
+    }
+
+    @GetMapping("/search")
+    @Operation(
+            summary = "Search sessions in a time window",
+            description = """
+                    Returns sessions starting in [from, to), paginated.
+
+                    Query parameters:
+                    - from, to (required), e.g. from=2026-01-01T00:00
+                    - courseId, trainerId (optional)
+                    - onlyAvailable=true keeps sessions that still have free seats
+                    - page, size, sort (default sort=startTime,asc)
+
+                    Access: USER / TRAINER / ADMIN.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Sessions returned"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Missing or inverted time range"),
+            @ApiResponse(responseCode = "401", description = "Authentication required")
+    })
+    public PageResponse<ResponseSessionDto> search(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) Long trainerId,
+            @RequestParam(defaultValue = "false") boolean onlyAvailable,
+            @ParameterObject
+            @PageableDefault(size = 20, sort = "startTime", direction = Sort.Direction.ASC)
+            Pageable pageable,
+            WebRequest webRequest
     ) {
-        return sessionService.getAll(pageable);
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.SESSIONS))) {
+            return null;
+        }
+        return sessionService.search(from, to, courseId, trainerId, onlyAvailable, pageable);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Stream live session occupancy (Server-Sent Events)",
+            description = """
+                    Pushes an `occupancy` event whenever the number of active bookings or the capacity
+                    of a session changes. Bursts are coalesced: a client gets the latest state of each
+                    session, published at most every flush interval (500 ms by default).
+                    
+                    Query parameters:
+                    - courseId (optional): only sessions of this course; the stream then starts
+                      with the current occupancy of the course's upcoming sessions
+                    
+                    Idle streams receive a keep-alive comment every 25 seconds.
+                    
+                    Access: USER / TRAINER / ADMIN.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Event stream opened",
+                    content = @Content(schema = @Schema(implementation = SessionOccupancyDto.class))),
+            @ApiResponse(responseCode = "401", description = "Authentication required"),
+            @ApiResponse(responseCode = "503", description = "Subscriber limit reached")
+    })
+    public SseEmitter stream(@RequestParam(required = false) Long courseId) {
+        return occupancyHub.subscribe(courseId);
+    }
+
+    @GetMapping("/changes")
+    @Operation(
+            summary = "Sessions changed since a sync token",
+            description = """
+                    Delta sync for polling clients.
+                    
+                    Returns sessions created or updated after `since`, ids of sessions deleted after it,
+                    and the token to use next time. Omit `since` for a full initial sync.
+                    Seat count changes (currentBookings) are included.
+                    
+                    At most 500 rows are returned per call (rows written by one transaction are
+                    never split); when `hasMore` is true, call again with `next` right away.
+                    Writes appear about `changes.mark-interval-millis` after they commit; a
+                    long-running write holds back the ones after it until it finishes.
+                    A token the server does not know, or one older than the tombstone retention
+                    (`changes.tombstone-retention-days`), yields 410 and the client should start over.
+                    
+                    Access: USER / TRAINER / ADMIN.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Changes returned"),
+            @ApiResponse(responseCode = "401", description = "Authentication required"),
+            @ApiResponse(responseCode = "410", description = "Unknown or expired sync token")
+    })
+    public ResponseChangesDto<ResponseSessionDto> getChanges(@RequestParam(required = false) Long since) {
+        return sessionService.getChanges(since);
     }
 
     @Operation(
@@ -72,11 +228,15 @@ public class SessionController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Session found"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "401", description = "Authentication required"),
             @ApiResponse(responseCode = "404", description = "Session not found")
     })
     @GetMapping("/{id}")
-    public ResponseSessionDto getById(@PathVariable Long id) {
+    public ResponseSessionDto getById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(resourceVersions.etag(ResourceVersions.Resource.SESSIONS))) {
+            return null;
+        }
         return sessionService.getById(id);
     }
 
@@ -107,6 +267,63 @@ public class SessionController {
         return sessionService.create(dto);
     }
 
+    @PostMapping("/series")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(
+            summary = "Create a recurring series of sessions (ADMIN only)",
+            description = """
+                    Expands a recurrence rule and creates all its sessions in one transaction.
+
+                    Rule:
+                    - frequency: DAILY or WEEKLY, repeated every `interval` days/weeks (default 1)
+                    - daysOfWeek: WEEKLY only, defaults to the weekday of startTime
+                    - exactly one of `until` (inclusive date) or `count`
+                    - exclusions: dates to skip
+
+                    Every occurrence has the time of day and duration of startTime/endTime.
+                    A series may contain at most 366 sessions.
+
+                    If any occurrence overlaps an existing session of the course, nothing is created
+                    and all conflicting start times are listed in the error message.
+
+                    Access: ADMIN only.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Sessions created"),
+            @ApiResponse(responseCode = "400", description = "Invalid rule, past start or capacity"),
+            @ApiResponse(responseCode = "401", description = "Authentication required"),
+            @ApiResponse(responseCode = "403", description = "ADMIN role required"),
+            @ApiResponse(responseCode = "404", description = "Course not found"),
+            @ApiResponse(responseCode = "409", description = "Some occurrences overlap existing sessions")
+    })
+    public List<ResponseSessionDto> createSeries(@RequestBody RequestSessionSeriesDto dto) {
+        return sessionService.createSeries(dto);
+    }
+
+    @PostMapping("/booked-counts/recalculate")
+    @Operation(
+            summary = "Recalculate seat counts (ADMIN only)",
+            description = """
+                    One-off maintenance action: recomputes every session's booked seat count from
+                    its PENDING / CONFIRMED bookings and corrects the sessions that differ.
+
+                    Needed once after upgrading a database whose sessions were created before seat
+                    counts were stored; normal booking writes keep the counts exact. Run it while
+                    no bookings are being written, e.g. before routing traffic to a new release.
+
+                    Access: ADMIN only.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Counts recalculated"),
+            @ApiResponse(responseCode = "401", description = "Authentication required"),
+            @ApiResponse(responseCode = "403", description = "ADMIN role required")
+    })
+    public ResponseBookedCountsDto recalculateBookedCounts() {
+        return new ResponseBookedCountsDto(sessionService.recalculateBookedCounts());
+    }
+
     @PutMapping("/{id}")
     @Operation(
             summary = "Update a session (ADMIN only)",
@@ -1,8 +1,10 @@
 package dev.temnikov.qa_test.api.controller;
 
+import dev.temnikov.qa_test.api.dto.CursorPage;
 import dev.temnikov.qa_test.api.dto.PageResponse;
 import dev.temnikov.qa_test.api.dto.RequestUserDto;
 import dev.temnikov.qa_test.api.dto.ResponseUserDto;
+import dev.temnikov.qa_test.api.pagination.TotalMode;
 import dev.temnikov.qa_test.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -44,20 +46,51 @@ public class UserController {
                     - page: zero-based page index (default 0)
                     - size: page size (default 20)
                     - sort: sorting, e.g. sort=id,asc or sort=email,asc
+                    - withTotal: true (default) counts all rows, false skips the count query
+                      (totals are null), cached reuses a count refreshed every few seconds
                     
                     Requires authentication (USER, ADMIN or TRAINER).
                     """
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Users returned"),
+            @ApiResponse(responseCode = "400", description = "Invalid withTotal value"),
             @ApiResponse(responseCode = "401", description = "Authentication required")
     })
     public PageResponse<ResponseUserDto> getAll(
             @ParameterObject
             @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC)
-            Pageable pageable
+            Pageable pageable,
+            @RequestParam(defaultValue = "true") String withTotal
     ) {
-        return userService.getAll(pageable);
+        return userService.getAll(pageable, TotalMode.fromParam(withTotal));
+    }
+
+    @GetMapping(params = "cursor")
+    @Operation(
+            summary = "List users (keyset pagination)",
+            description = """
+                    Cursor-based alternative to the paginated list; selected by the presence of `cursor`.
+                    Pages are read with a seek condition on (sort key, id) instead of OFFSET,
+                    and no total count is computed.
+                    
+                    Query parameters:
+                    - cursor: empty for the first page, then the `next` or `prev` value of a previous response
+                    - size: page size (default 20, max 1000)
+                    
+                    Requires authentication (USER, ADMIN or TRAINER).
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Users returned"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or size"),
+            @ApiResponse(responseCode = "401", description = "Authentication required")
+    })
+    public CursorPage<ResponseUserDto> getAllByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return userService.getAllByCursor(cursor, size);
     }
 
     @GetMapping("/{id}")
@@ -142,7 +175,8 @@ public class UserController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "User deleted"),
             @ApiResponse(responseCode = "401", description = "Authentication required"),
-            @ApiResponse(responseCode = "404", description = "User not found")
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "409", description = "User still has bookings or courses; nothing is revoked")
     })
     public void delete(@PathVariable Long id) {
         userService.delete(id);
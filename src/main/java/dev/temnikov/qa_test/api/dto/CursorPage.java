@@ -0,0 +1,22 @@
+package dev.temnikov.qa_test.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Keyset-paginated response; no totals are computed")
+public record CursorPage<T>(
+
+        @Schema(description = "Current page content")
+        List<T> content,
+
+        @Schema(description = "Requested page size")
+        int size,
+
+        @Schema(description = "Cursor of the following page; null when this is the last page")
+        String next,
+
+        @Schema(description = "Cursor of the preceding page; null when this is the first page")
+        String prev
+) {
+}
@@ -16,11 +16,12 @@ public record PageResponse<T>(
         @Schema(description = "Requested page size")
         int size,
 
-        @Schema(description = "Total number of elements available")
-        long totalElements,
+        @Schema(description = "Total number of elements available; null when totals were not requested (withTotal=false), "
+                + "possibly slightly stale with withTotal=cached", nullable = true)
+        Long totalElements,
 
-        @Schema(description = "Total number of pages available")
-        int totalPages,
+        @Schema(description = "Total number of pages available; null when totals were not requested", nullable = true)
+        Integer totalPages,
 
         @Schema(description = "Whether this is the last page")
         boolean last
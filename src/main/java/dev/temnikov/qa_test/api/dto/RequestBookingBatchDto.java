@@ -0,0 +1,25 @@
+package dev.temnikov.qa_test.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Several bookings created in one call")
+public record RequestBookingBatchDto(
+
+        @Schema(description = "Bookings to create; userId may be omitted to book for the current user")
+        List<RequestBookingDto> items,
+
+        @Schema(
+                description = "ALL_OR_NOTHING creates nothing if any item fails; PARTIAL creates every valid item",
+                example = "ALL_OR_NOTHING",
+                defaultValue = "ALL_OR_NOTHING"
+        )
+        Mode mode
+) {
+
+    public enum Mode {
+        ALL_OR_NOTHING,
+        PARTIAL
+    }
+}
@@ -0,0 +1,16 @@
+package dev.temnikov.qa_test.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Status change applied to several bookings")
+public record RequestBookingBulkStatusDto(
+
+        @Schema(description = "Booking ids")
+        List<Long> ids,
+
+        @Schema(description = "Target status", example = "CONFIRMED")
+        String status
+) {
+}
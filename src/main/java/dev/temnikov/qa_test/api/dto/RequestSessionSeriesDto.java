@@ -0,0 +1,48 @@
+package dev.temnikov.qa_test.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Schema(description = "Recurring sessions of one course created in one call")
+public record RequestSessionSeriesDto(
+        Long courseId,
+
+        @Schema(description = "Start of the first occurrence", example = "2026-01-24T10:00")
+        LocalDateTime startTime,
+
+        @Schema(description = "End of the first occurrence; every occurrence gets the same duration",
+                example = "2026-01-24T11:00")
+        LocalDateTime endTime,
+
+        Integer capacity,
+
+        @Schema(example = "WEEKLY")
+        Frequency frequency,
+
+        @Schema(description = "Repeat every N days or weeks", example = "1", defaultValue = "1")
+        Integer interval,
+
+        @Schema(description = "WEEKLY only; defaults to the weekday of startTime", example = "[\"MONDAY\", \"THURSDAY\"]")
+        List<DayOfWeek> daysOfWeek,
+
+        @Schema(description = "Last date an occurrence may fall on (inclusive); set either until or count",
+                example = "2026-12-31")
+        LocalDate until,
+
+        @Schema(description = "Number of occurrences; set either until or count", example = "52")
+        Integer count,
+
+        @Schema(description = "Dates to skip; applied after count, as in iCalendar EXDATE",
+                example = "[\"2026-05-01\"]")
+        List<LocalDate> exclusions
+) {
+
+    public enum Frequency {
+        DAILY,
+        WEEKLY
+    }
+}
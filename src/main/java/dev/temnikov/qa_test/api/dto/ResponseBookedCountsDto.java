@@ -0,0 +1,9 @@
+package dev.temnikov.qa_test.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Result of recalculating session seat counts from the bookings table")
+public record ResponseBookedCountsDto(
+        @Schema(description = "Sessions whose stored count differed and was corrected") int correctedSessions
+) {
+}
@@ -0,0 +1,34 @@
+package dev.temnikov.qa_test.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Per-item outcome of a batch booking request")
+public record ResponseBookingBatchDto(
+
+        @Schema(description = "Outcome for each requested item, in request order")
+        List<Item> items,
+
+        @Schema(description = "Number of bookings created")
+        int created,
+
+        @Schema(description = "Number of items not created")
+        int failed
+) {
+
+    public record Item(
+            @Schema(description = "Zero-based index of the item in the request")
+            int index,
+
+            @Schema(description = "HTTP status the item would have produced as a single request", example = "201")
+            int status,
+
+            @Schema(description = "Error message for failed items")
+            String message,
+
+            @Schema(description = "Created booking, if any")
+            ResponseBookingDto booking
+    ) {
+    }
+}
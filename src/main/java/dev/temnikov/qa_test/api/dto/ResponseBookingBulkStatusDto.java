@@ -0,0 +1,34 @@
+package dev.temnikov.qa_test.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Per-booking outcome of a bulk status change")
+public record ResponseBookingBulkStatusDto(
+
+        @Schema(description = "Outcome for each booking id")
+        List<Item> items,
+
+        @Schema(description = "Number of bookings whose status was changed")
+        int updated,
+
+        @Schema(description = "Number of bookings that were not changed because of an error")
+        int failed
+) {
+
+    public record Item(
+            @Schema(description = "Booking id")
+            Long id,
+
+            @Schema(description = "HTTP status the change would have produced as a single request", example = "200")
+            int status,
+
+            @Schema(description = "Error message for failed items")
+            String message,
+
+            @Schema(description = "Booking status after the operation", example = "CONFIRMED")
+            String bookingStatus
+    ) {
+    }
+}
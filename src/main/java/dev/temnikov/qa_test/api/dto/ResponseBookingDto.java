@@ -1,9 +1,15 @@
 package dev.temnikov.qa_test.api.dto;
 
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
 public record ResponseBookingDto(
         Long id,
         Long userId,
         Long sessionId,
-        String status
+        String status,
+        Integer waitlistPosition,
+        @Schema(example = "2026-01-24T10:15") LocalDateTime holdExpiresAt
 ) {
 }
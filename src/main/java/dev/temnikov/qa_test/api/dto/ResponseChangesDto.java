@@ -0,0 +1,22 @@
+package dev.temnikov.qa_test.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Rows changed since a sync token")
+public record ResponseChangesDto<T>(
+
+        @Schema(description = "Created or updated rows, in change order")
+        List<T> changed,
+
+        @Schema(description = "Ids of rows deleted since the token")
+        List<Long> deleted,
+
+        @Schema(description = "Token to pass as `since` on the next call", example = "1042")
+        long next,
+
+        @Schema(description = "True when the response was cut at the row limit; call again with `next` right away")
+        boolean hasMore
+) {
+}
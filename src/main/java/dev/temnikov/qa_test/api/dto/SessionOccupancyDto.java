@@ -0,0 +1,13 @@
+package dev.temnikov.qa_test.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Current seat usage of a session, pushed on /api/sessions/stream")
+public record SessionOccupancyDto(
+        Long sessionId,
+        Long courseId,
+        int capacity,
+        @Schema(description = "Active (PENDING / CONFIRMED) bookings") int booked,
+        int seatsLeft
+) {
+}
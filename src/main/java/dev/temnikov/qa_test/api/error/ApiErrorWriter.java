@@ -0,0 +1,57 @@
+package dev.temnikov.qa_test.api.error;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Writes an {@link ApiError} body from servlet filters, which run before {@link ApiExceptionHandler}
+ * can see the exception.
+ */
+public final class ApiErrorWriter {
+
+    private ApiErrorWriter() {
+    }
+
+    public static void write(HttpServletRequest request,
+                             HttpServletResponse response,
+                             HttpStatusCode status,
+                             HttpHeaders headers,
+                             String message) throws IOException {
+        response.setStatus(status.value());
+        headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setContentType("application/json");
+        response.getWriter().write("""
+                {"timestamp":"%s","message":"%s","path":"%s"}
+                """.formatted(Instant.now(), escape(message), escape(request.getRequestURI())));
+    }
+
+    private static String escape(String s) {
+        if (s == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append("\\u%04x".formatted((int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+}
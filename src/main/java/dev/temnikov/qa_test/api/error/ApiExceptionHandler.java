@@ -2,6 +2,7 @@ package dev.temnikov.qa_test.api.error;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -32,7 +33,7 @@ public class ApiExceptionHandler {
     public ResponseEntity<ApiError> handleResponseStatus(ResponseStatusException ex,
                                                          HttpServletRequest request) {
         if (!isApi(request)) {
-            return ResponseEntity.status(ex.getStatusCode()).build();
+            return ResponseEntity.status(ex.getStatusCode()).headers(ex.getHeaders()).build();
         }
 
         HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
@@ -40,7 +41,17 @@ public class ApiExceptionHandler {
                 ? ex.getReason()
                 : status.getReasonPhrase();
 
-        return build(status, message, request);
+        // carries e.g. Retry-After set by the exception
+        return ResponseEntity.status(status).headers(ex.getHeaders()).body(apiError(message, request));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiError> handleConcurrentModification(OptimisticLockingFailureException ex,
+                                                                 HttpServletRequest request) {
+        if (!isApi(request)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return build(HttpStatus.CONFLICT, "Resource was modified concurrently, please retry", request);
     }
 
     @ExceptionHandler(AccessDeniedException.class)
@@ -73,14 +84,15 @@ public class ApiExceptionHandler {
     private ResponseEntity<ApiError> build(HttpStatus status,
                                            String message,
                                            HttpServletRequest request) {
+        return ResponseEntity.status(status).body(apiError(message, request));
+    }
 
-        ApiError body = new ApiError(
+    private ApiError apiError(String message, HttpServletRequest request) {
+        return new ApiError(
                 Instant.now(),
                 message,
                 request.getRequestURI()
         );
-
-        return ResponseEntity.status(status).body(body);
     }
 
     private boolean isApi(HttpServletRequest request) {
@@ -0,0 +1,93 @@
+package dev.temnikov.qa_test.api.idempotency;
+
+import dev.temnikov.qa_test.service.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-evicting store for Idempotency-Key handling.
+ *
+ * The first request with a key runs the action; concurrent and later duplicates with the same
+ * fingerprint wait for and reuse its result. Failed actions are forgotten so that the client can retry.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private record Entry(String fingerprint, CompletableFuture<Object> result) {
+    }
+
+    private final BoundedTtlCache<String, Entry> entries;
+
+    public IdempotencyStore(
+            @Value("${idempotency.ttl-seconds}") long ttlSeconds,
+            @Value("${idempotency.max-entries}") int maxEntries
+    ) {
+        this.entries = new BoundedTtlCache<>(Duration.ofSeconds(ttlSeconds), maxEntries);
+    }
+
+    /**
+     * Runs the action once per key.
+     *
+     * @param key         client key, already scoped to the caller
+     * @param fingerprint description of the request; a key reused with another fingerprint is rejected
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String fingerprint, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters"
+            );
+        }
+
+        Entry created = new Entry(fingerprint, new CompletableFuture<>());
+        Entry entry = entries.putIfAbsent(key, created);
+
+        if (entry != null) {
+            if (!entry.fingerprint().equals(fingerprint)) {
+                throw new ResponseStatusException(
+                        HttpStatus.UNPROCESSABLE_CONTENT,
+                        HEADER + " was already used for a different request"
+                );
+            }
+            return (T) await(entry.result());
+        }
+
+        try {
+            T result = action.get();
+            created.result().complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            entries.remove(key, created);
+            created.result().completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        entries.evictExpired();
+    }
+
+    private Object await(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
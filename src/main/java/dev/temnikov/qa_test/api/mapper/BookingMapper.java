@@ -10,6 +10,10 @@ import dev.temnikov.qa_test.entity.User;
 public class BookingMapper {
 
     public static ResponseBookingDto toResponseDto(Booking booking) {
+        return toResponseDto(booking, null);
+    }
+
+    public static ResponseBookingDto toResponseDto(Booking booking, Integer waitlistPosition) {
         if (booking == null) {
             return null;
         }
@@ -20,7 +24,9 @@ public class BookingMapper {
                 booking.getId(),
                 userId,
                 sessionId,
-                booking.getStatus() != null ? booking.getStatus().name() : null
+                booking.getStatus() != null ? booking.getStatus().name() : null,
+                waitlistPosition,
+                booking.getHoldExpiresAt()
         );
     }
 
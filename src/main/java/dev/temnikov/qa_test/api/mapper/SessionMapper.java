@@ -7,6 +7,10 @@ import dev.temnikov.qa_test.entity.Session;
 
 public class SessionMapper {
 
+    public static ResponseSessionDto toDto(Session session) {
+        return session != null ? toDto(session, session.getBookedCount()) : null;
+    }
+
     public static ResponseSessionDto toDto(Session session, int currentBookings) {
         if (session == null) {
             return null;
@@ -23,10 +27,6 @@ public class SessionMapper {
         );
     }
 
-    public static ResponseSessionDto toDto(Session session) {
-        return toDto(session, 0);
-    }
-
 
     public static Session toEntity(RequestSessionDto dto, Course course) {
         if (dto == null) {
@@ -0,0 +1,58 @@
+package dev.temnikov.qa_test.api.pagination;
+
+import dev.temnikov.qa_test.api.dto.CursorPage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Turns the rows of a keyset query into a {@link CursorPage}.
+ * <p>
+ * Queries fetch one row more than the page size: forward pages in ascending order after the
+ * cursor, backward pages in descending order before it. The extra row only tells whether
+ * another page exists in that direction.
+ */
+public final class KeysetPages {
+
+    private KeysetPages() {
+    }
+
+    public static <E, D> CursorPage<D> toPage(List<E> rows,
+                                              int size,
+                                              PageCursor cursor,
+                                              String sortKey,
+                                              Function<E, String> keyOf,
+                                              Function<E, Long> idOf,
+                                              Function<E, D> mapper) {
+        boolean backward = cursor != null && cursor.backward();
+        boolean hasMore = rows.size() > size;
+
+        List<E> page = new ArrayList<>(rows.subList(0, Math.min(size, rows.size())));
+        if (backward) {
+            Collections.reverse(page);
+        }
+
+        String next;
+        String prev;
+        if (page.isEmpty()) {
+            // nothing in the requested direction: offer the way back from the cursor itself
+            next = backward ? flip(cursor) : null;
+            prev = cursor != null && !backward ? flip(cursor) : null;
+        } else {
+            E first = page.get(0);
+            E last = page.get(page.size() - 1);
+            boolean moreAfter = backward || hasMore;
+            boolean moreBefore = backward ? hasMore : cursor != null;
+            next = moreAfter ? new PageCursor(sortKey, keyOf.apply(last), idOf.apply(last), false).encode() : null;
+            prev = moreBefore ? new PageCursor(sortKey, keyOf.apply(first), idOf.apply(first), true).encode() : null;
+        }
+
+        return new CursorPage<>(page.stream().map(mapper).toList(), size, next, prev);
+    }
+
+    private static String flip(PageCursor cursor) {
+        return new PageCursor(cursor.sortKey(), cursor.keyValue(), cursor.id(), !cursor.backward()).encode();
+    }
+}
@@ -0,0 +1,61 @@
+package dev.temnikov.qa_test.api.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-ordered list: the sort key and id of the row next to the page boundary.
+ * <p>
+ * Clients treat the encoded form as opaque; it only has to survive a round-trip through a query
+ * parameter. An empty cursor stands for the first page.
+ *
+ * @param sortKey  name of the sort key the cursor was issued for
+ * @param keyValue value of the sort key at the boundary row; equals the id for id-ordered lists
+ * @param id       id of the boundary row, the tie-breaker
+ * @param backward true when the page lies before the boundary row
+ */
+public record PageCursor(String sortKey, String keyValue, long id, boolean backward) {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 1000;
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = (backward ? "p" : "n") + SEPARATOR + sortKey + SEPARATOR + id + SEPARATOR + keyValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null for a blank cursor (first page)
+     */
+    public static PageCursor decode(String cursor, String expectedSortKey) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length == 4 && parts[1].equals(expectedSortKey)
+                    && (parts[0].equals("n") || parts[0].equals("p"))) {
+                return new PageCursor(parts[1], parts[3], Long.parseLong(parts[2]), parts[0].equals("p"));
+            }
+        } catch (IllegalArgumentException ignored) {
+            // reported below
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+
+    public static int validateSize(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "size must be between 1 and " + MAX_SIZE
+            );
+        }
+        return size;
+    }
+}
@@ -0,0 +1,40 @@
+package dev.temnikov.qa_test.api.pagination;
+
+import dev.temnikov.qa_test.api.dto.PageResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.function.Function;
+
+/**
+ * Builds {@link PageResponse}s from Spring Data pages and slices.
+ */
+public final class PageResponses {
+
+    private PageResponses() {
+    }
+
+    public static <E, D> PageResponse<D> of(Page<E> page, Function<E, D> mapper) {
+        return of(page, page.getTotalElements(), mapper);
+    }
+
+    /**
+     * @param totalElements total to report, or null to leave the totals out
+     */
+    public static <E, D> PageResponse<D> of(Slice<E> slice, Long totalElements, Function<E, D> mapper) {
+        Integer totalPages = null;
+        if (totalElements != null) {
+            totalPages = slice.getSize() == 0 ? 1 : (int) Math.ceil((double) totalElements / slice.getSize());
+        }
+        return new PageResponse<>(
+                slice.getContent().stream()
+                        .map(mapper)
+                        .toList(),
+                slice.getNumber(),
+                slice.getSize(),
+                totalElements,
+                totalPages,
+                slice.isLast()
+        );
+    }
+}
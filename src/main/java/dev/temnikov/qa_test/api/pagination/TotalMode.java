@@ -0,0 +1,40 @@
+package dev.temnikov.qa_test.api.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * How a paginated list reports totalElements / totalPages, chosen with {@code ?withTotal=}.
+ */
+public enum TotalMode {
+
+    /**
+     * {@code withTotal=true} (default): exact count query on every page.
+     */
+    EXACT,
+
+    /**
+     * {@code withTotal=false}: no count query; size + 1 rows are read to tell whether a next page exists.
+     */
+    NONE,
+
+    /**
+     * {@code withTotal=cached}: no count query per page; the total comes from a short-lived cache.
+     */
+    CACHED;
+
+    public static TotalMode fromParam(String withTotal) {
+        if (withTotal == null || withTotal.isBlank()) {
+            return EXACT;
+        }
+        return switch (withTotal.trim().toLowerCase()) {
+            case "true" -> EXACT;
+            case "false" -> NONE;
+            case "cached" -> CACHED;
+            default -> throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "withTotal must be true, false or cached"
+            );
+        };
+    }
+}
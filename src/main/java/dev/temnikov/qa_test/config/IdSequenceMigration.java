@@ -0,0 +1,69 @@
+package dev.temnikov.qa_test.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the id sequences past ids that already exist in the tables.
+ * <p>
+ * Entities used to get their ids from IDENTITY columns; the sequences created for the pooled
+ * generators start at 1, so on a database with existing rows they would hand out taken ids.
+ * Runs once the schema has been updated and before anything can be inserted.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceMigration {
+
+    /**
+     * Must match {@code allocationSize} of the entity sequence generators: with the pooled
+     * optimizer a fetched sequence value may stand for up to this many ids below it.
+     */
+    static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES_BY_TABLE = Map.of(
+            "users", "users_seq",
+            "courses", "courses_seq",
+            "session", "session_seq",
+            "bookings", "bookings_seq"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+
+    public IdSequenceMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        SEQUENCES_BY_TABLE.forEach(this::alignSequence);
+    }
+
+    private void alignSequence(String table, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+        String nextValueSql = dialect.getSequenceSupport().getSequenceNextValString(sequence);
+        Long next = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+        if (next != null && next > maxId + ALLOCATION_SIZE) {
+            return;
+        }
+
+        long restartWith = maxId + ALLOCATION_SIZE + 1;
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + restartWith);
+        log.info("Sequence {} restarted with {} (max id in {} is {})", sequence, restartWith, table, maxId);
+    }
+}
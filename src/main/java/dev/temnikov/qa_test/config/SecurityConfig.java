@@ -1,38 +1,84 @@
 package dev.temnikov.qa_test.config;
 
+import dev.temnikov.qa_test.security.BasicCredentialCache;
+import dev.temnikov.qa_test.security.CachingBasicAuthenticationProvider;
+import dev.temnikov.qa_test.security.BoundedPasswordEncoder;
 import dev.temnikov.qa_test.security.JwtAuthenticationFilter;
+import dev.temnikov.qa_test.security.PasswordHashExecutor;
+import dev.temnikov.qa_test.security.PasswordHashRejectionFilter;
+import dev.temnikov.qa_test.security.RateLimitFilter;
+import dev.temnikov.qa_test.security.RateLimiter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.NoOpPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 
+import java.util.Map;
+
 @Configuration
 public class SecurityConfig {
 
+    /**
+     * Health and info are public for load balancers; metrics and the bulkhead state are ADMIN only.
+     */
+    @Bean
+    @Order(0)
+    public SecurityFilterChain actuatorSecurity(HttpSecurity http) throws Exception {
+        http
+                .csrf(csrf -> csrf.disable())
+                .securityMatcher("/actuator/**")
+                .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+                        .anyRequest().hasRole("ADMIN")
+                )
+                .httpBasic(Customizer.withDefaults());
+
+        http.addFilterBefore(new PasswordHashRejectionFilter(), BasicAuthenticationFilter.class);
+
+        return http.build();
+    }
+
     @Bean
     @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http,
                                                    UserDetailsService userDetailsService,
-                                                   JwtAuthenticationFilter jwtAuthenticationFilter) throws Exception {
+                                                   UserDetailsPasswordService userDetailsPasswordService,
+                                                   PasswordEncoder passwordEncoder,
+                                                   BasicCredentialCache basicCredentialCache,
+                                                   JwtAuthenticationFilter jwtAuthenticationFilter,
+                                                   RateLimiter rateLimiter) throws Exception {
+        CachingBasicAuthenticationProvider basicProvider =
+                new CachingBasicAuthenticationProvider(userDetailsService, passwordEncoder, basicCredentialCache);
+        basicProvider.setUserDetailsPasswordService(userDetailsPasswordService);
+
         http
                 .csrf(csrf -> csrf.disable())
                 .securityMatcher("/api/**")
-                .userDetailsService(userDetailsService)
+                // Basic credentials verified a moment ago skip the password check
+                .authenticationManager(new ProviderManager(basicProvider))
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         // public registration
                         .requestMatchers(HttpMethod.POST, "/api/users").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/auth/refresh").permitAll()
 
                         // admin courses
                         .requestMatchers(HttpMethod.POST, "/api/courses/**").hasRole("ADMIN")
@@ -50,6 +96,8 @@ public class SecurityConfig {
                 .httpBasic(Customizer.withDefaults());
 
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(new RateLimitFilter(rateLimiter), JwtAuthenticationFilter.class);
+        http.addFilterBefore(new PasswordHashRejectionFilter(), BasicAuthenticationFilter.class);
 
         return http.build();
     }
@@ -65,8 +113,7 @@ public class SecurityConfig {
                         "/logout",
                         "/ui/**",
                         "/swagger-ui/**",
-                        "/v3/api-docs/**",
-                        "/actuator/**"
+                        "/v3/api-docs/**"
                 )
 //                .csrf(csrf -> csrf.e())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
@@ -78,7 +125,6 @@ public class SecurityConfig {
                                 "/logout",
                                 "/swagger-ui/**",
                                 "/v3/api-docs/**",
-                                "/actuator/**",
                                 "/css/**",
                                 "/js/**",
                                 "/images/**"
@@ -97,13 +143,29 @@ public class SecurityConfig {
                         .permitAll()
                 );
 
+        http.addFilterBefore(new PasswordHashRejectionFilter(), UsernamePasswordAuthenticationFilter.class);
+
         return http.build();
     }
 
+    /**
+     * BCrypt for new hashes. Rows without an {@code {id}} prefix are legacy plain text; they still
+     * match and are re-hashed on the next successful login, as are hashes with a lower BCrypt cost.
+     * All hashing runs on the bounded {@link PasswordHashExecutor}.
+     */
     @Bean
     @SuppressWarnings("deprecation")
-    public PasswordEncoder passwordEncoder() {
-        return NoOpPasswordEncoder.getInstance();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength}") int bcryptStrength,
+                                           PasswordHashExecutor passwordHashExecutor) {
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(
+                "bcrypt",
+                Map.of(
+                        "bcrypt", new BCryptPasswordEncoder(bcryptStrength),
+                        "noop", NoOpPasswordEncoder.getInstance()
+                )
+        );
+        delegating.setDefaultPasswordEncoderForMatches(NoOpPasswordEncoder.getInstance());
+        return new BoundedPasswordEncoder(delegating, passwordHashExecutor);
     }
 
     @Bean
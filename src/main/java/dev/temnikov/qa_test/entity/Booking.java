@@ -3,15 +3,26 @@ package dev.temnikov.qa_test.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bookings")
+@Table(
+        name = "bookings",
+        indexes = {
+                @Index(name = "idx_bookings_change_version", columnList = "change_version"),
+                @Index(name = "idx_bookings_status_hold", columnList = "status, hold_expires_at")
+        }
+)
+@EntityListeners(ChangeVersionListener.class)
 @Data
 @NoArgsConstructor
-public class Booking {
+public class Booking implements ChangeTracked {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_id")
+    @SequenceGenerator(name = "booking_id", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -25,4 +36,30 @@ public class Booking {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private BookingStatus status;
-}
\ No newline at end of file
+
+    /**
+     * Set when the booking joins the waitlist; defines FIFO order together with id.
+     */
+    private LocalDateTime waitlistedAt;
+
+    /**
+     * End of the seat hold for PENDING bookings; null once the booking is confirmed or cancelled.
+     */
+    private LocalDateTime holdExpiresAt;
+
+    /**
+     * Optimistic lock. Bulk updates in BookingRepository bump it as well, so an entity loaded
+     * before such an update cannot silently overwrite it.
+     */
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    /**
+     * Change version of the last write, see ChangeVersions; drives GET /api/bookings/changes.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long changeVersion;
+}
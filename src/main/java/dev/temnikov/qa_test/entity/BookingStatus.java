@@ -1,7 +1,32 @@
 package dev.temnikov.qa_test.entity;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum BookingStatus {
     PENDING,
     CONFIRMED,
-    CANCELLED
+    CANCELLED,
+    WAITLISTED;
+
+    /**
+     * Statuses that occupy a seat in the session.
+     */
+    public static final Set<BookingStatus> ACTIVE = EnumSet.of(PENDING, CONFIRMED);
+
+    public boolean isActive() {
+        return ACTIVE.contains(this);
+    }
+
+    /**
+     * Transitions allowed for bulk status changes. Moving a booking into an active status is left
+     * to creation and waitlist promotion, which check capacity.
+     */
+    public boolean canTransitionTo(BookingStatus target) {
+        return switch (this) {
+            case PENDING -> target == CONFIRMED || target == CANCELLED;
+            case CONFIRMED, WAITLISTED -> target == CANCELLED;
+            case CANCELLED -> false;
+        };
+    }
 }
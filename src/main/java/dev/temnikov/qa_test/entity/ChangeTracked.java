@@ -0,0 +1,9 @@
+package dev.temnikov.qa_test.entity;
+
+/**
+ * Entity exposed through a delta-sync feed or an ETag; {@link ChangeVersionListener} stamps every write.
+ */
+public interface ChangeTracked {
+
+    void setChangeVersion(long changeVersion);
+}
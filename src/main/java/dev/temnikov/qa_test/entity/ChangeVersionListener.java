@@ -0,0 +1,26 @@
+package dev.temnikov.qa_test.entity;
+
+import dev.temnikov.qa_test.service.ChangeVersions;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Stamps inserted and updated entities with the change version of the current transaction.
+ * Bulk JPQL updates bypass entity callbacks and set the version themselves.
+ */
+public class ChangeVersionListener {
+
+    // resolved lazily: listeners are created while the EntityManagerFactory is being built
+    private final ObjectProvider<ChangeVersions> changeVersions;
+
+    public ChangeVersionListener(ObjectProvider<ChangeVersions> changeVersions) {
+        this.changeVersions = changeVersions;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void stamp(ChangeTracked entity) {
+        entity.setChangeVersion(changeVersions.getObject().current());
+    }
+}
@@ -0,0 +1,31 @@
+package dev.temnikov.qa_test.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Latest safe change version published by one node: every version up to it that this node handed
+ * out belongs to a finished transaction. Rewritten by each node every interval, see
+ * {@link dev.temnikov.qa_test.service.ChangeVersions#committedWatermark()}.
+ */
+@Entity
+@Table(
+        name = "change_version_marks",
+        indexes = @Index(name = "idx_change_version_marks_observed_at", columnList = "observed_at")
+)
+@Data
+@NoArgsConstructor
+public class ChangeVersionMark {
+
+    @Id
+    private String nodeId;
+
+    @Column(nullable = false)
+    private long safeVersion;
+
+    @Column(nullable = false)
+    private LocalDateTime observedAt;
+}
@@ -3,15 +3,21 @@ package dev.temnikov.qa_test.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "courses")
+@Table(
+        name = "courses",
+        indexes = @Index(name = "idx_courses_change_version", columnList = "change_version")
+)
+@EntityListeners(ChangeVersionListener.class)
 @Data
 @NoArgsConstructor
-public class Course {
+public class Course implements ChangeTracked {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_id")
+    @SequenceGenerator(name = "course_id", sequenceName = "courses_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -19,4 +25,11 @@ public class Course {
 
     @Column(nullable = false)
     private Long trainerId;
+
+    /**
+     * Change version of the last write, see ChangeVersions; feeds the course ETag.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long changeVersion;
 }
\ No newline at end of file
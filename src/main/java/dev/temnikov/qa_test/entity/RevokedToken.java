@@ -0,0 +1,54 @@
+package dev.temnikov.qa_test.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Access tokens that must be refused before they expire.
+ * <p>
+ * A {@link Kind#TOKEN} row revokes one token by its {@code jti}. A {@link Kind#USER} row revokes
+ * every token of the subject issued up to {@code revokedAt}. Rows are dropped once every token
+ * they could match has expired anyway.
+ */
+@Entity
+@Table(
+        name = "revoked_tokens",
+        indexes = {
+                @Index(name = "idx_revoked_tokens_kind_key", columnList = "kind, token_key"),
+                @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"),
+                @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at")
+        }
+)
+@Data
+@NoArgsConstructor
+public class RevokedToken {
+
+    public enum Kind {
+        TOKEN,
+        USER
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "revoked_token_id")
+    @SequenceGenerator(name = "revoked_token_id", sequenceName = "revoked_tokens_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Kind kind;
+
+    /**
+     * The token's jti, or the subject (email) for {@link Kind#USER}.
+     */
+    @Column(nullable = false)
+    private String tokenKey;
+
+    @Column(nullable = false)
+    private LocalDateTime revokedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
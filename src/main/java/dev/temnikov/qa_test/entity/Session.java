@@ -3,19 +3,31 @@ package dev.temnikov.qa_test.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "session")
+@Table(
+        name = "session",
+        indexes = {
+                @Index(name = "idx_session_start_time", columnList = "start_time"),
+                @Index(name = "idx_session_course_start_time", columnList = "course_id, start_time"),
+                @Index(name = "idx_session_change_version", columnList = "change_version")
+        }
+)
+@EntityListeners(ChangeVersionListener.class)
+@DynamicUpdate
 @Data
 @NoArgsConstructor
-public class Session {
+public class Session implements ChangeTracked {
 
     public static final int DEFAULT_CAPACITY = 5;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "session_id")
+    @SequenceGenerator(name = "session_id", sequenceName = "session_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -30,4 +42,20 @@ public class Session {
 
     @Column(nullable = false)
     private int capacity = DEFAULT_CAPACITY;
-}
\ No newline at end of file
+
+    /**
+     * Number of active (PENDING / CONFIRMED) bookings.
+     * Maintained only through conditional updates in SessionRepository; the entity never writes it
+     * back on update thanks to @DynamicUpdate.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int bookedCount;
+
+    /**
+     * Change version of the last write, see ChangeVersions; drives GET /api/sessions/changes.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long changeVersion;
+}
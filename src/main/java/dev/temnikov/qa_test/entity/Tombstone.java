@@ -0,0 +1,48 @@
+package dev.temnikov.qa_test.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marker left behind by a deleted row so delta-sync clients and ETags learn about the delete.
+ */
+@Entity
+@Table(
+        name = "tombstones",
+        indexes = @Index(name = "idx_tombstones_type_change_version", columnList = "entity_type, change_version")
+)
+@Data
+@NoArgsConstructor
+public class Tombstone {
+
+    public enum EntityType {
+        SESSION,
+        BOOKING,
+        COURSE,
+        /**
+         * Not a deletion: marks that tombstones up to its change version have been pruned.
+         */
+        HORIZON
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tombstone_id")
+    @SequenceGenerator(name = "tombstone_id", sequenceName = "tombstones_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false)
+    private long changeVersion;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+}
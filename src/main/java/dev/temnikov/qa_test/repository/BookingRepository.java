@@ -2,17 +2,37 @@ package dev.temnikov.qa_test.repository;
 
 import dev.temnikov.qa_test.entity.Booking;
 import dev.temnikov.qa_test.entity.BookingStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     long countBySessionIdAndStatusIn(Long sessionId, Collection<BookingStatus> statuses);
 
+    /**
+     * Same rows as {@code findAll(pageable)} without the count query.
+     */
+    Slice<Booking> findAllBy(Pageable pageable);
+
+    List<Booking> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    List<Booking> findByIdLessThanOrderByIdDesc(long id, Limit limit);
+
+    @Query("select b.session.id from Booking b where b.id = :id")
+    Optional<Long> findSessionIdById(@Param("id") Long id);
+
     interface SessionBookingCount {
         Long getSessionId();
         long getCount();
@@ -27,4 +47,139 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             @Param("statuses") Collection<BookingStatus> statuses
     );
 
+    @Query("""
+            select b.id
+            from Booking b
+            where b.session.id = :sessionId
+              and b.status = dev.temnikov.qa_test.entity.BookingStatus.WAITLISTED
+            order by b.waitlistedAt asc, b.id asc
+            """)
+    List<Long> findWaitlistHead(@Param("sessionId") Long sessionId, Pageable pageable);
+
+    /**
+     * Number of waitlisted bookings ahead of the given position in the session queue.
+     */
+    @Query("""
+            select count(b)
+            from Booking b
+            where b.session.id = :sessionId
+              and b.status = dev.temnikov.qa_test.entity.BookingStatus.WAITLISTED
+              and (b.waitlistedAt < :waitlistedAt or (b.waitlistedAt = :waitlistedAt and b.id < :id))
+            """)
+    long countWaitlistedAhead(@Param("sessionId") Long sessionId,
+                              @Param("waitlistedAt") LocalDateTime waitlistedAt,
+                              @Param("id") Long id);
+
+    /**
+     * Moves a waitlisted booking to PENDING with a fresh hold; returns 0 if someone else promoted it first.
+     */
+    @Modifying
+    @Query("""
+            update Booking b
+            set b.status = dev.temnikov.qa_test.entity.BookingStatus.PENDING,
+                b.holdExpiresAt = :holdExpiresAt,
+                b.version = b.version + 1,
+                b.changeVersion = :changeVersion
+            where b.id = :id
+              and b.status = dev.temnikov.qa_test.entity.BookingStatus.WAITLISTED
+            """)
+    int promoteFromWaitlist(@Param("id") Long id,
+                            @Param("holdExpiresAt") LocalDateTime holdExpiresAt,
+                            @Param("changeVersion") long changeVersion);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b where b.id in :ids")
+    List<Booking> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select b
+            from Booking b
+            where b.session.id = :sessionId
+              and b.status = :status
+            """)
+    List<Booking> findBySessionIdAndStatusForUpdate(@Param("sessionId") Long sessionId,
+                                                    @Param("status") BookingStatus status);
+
+    /**
+     * Set-based status change for the given bookings that are still in the expected status.
+     *
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("""
+            update Booking b
+            set b.status = :to,
+                b.holdExpiresAt = null,
+                b.version = b.version + 1,
+                b.changeVersion = :changeVersion
+            where b.id in :ids
+              and b.status = :from
+            """)
+    int updateStatuses(@Param("ids") Collection<Long> ids,
+                       @Param("from") BookingStatus from,
+                       @Param("to") BookingStatus to,
+                       @Param("changeVersion") long changeVersion);
+
+    interface BookingHold {
+        Long getId();
+        LocalDateTime getHoldExpiresAt();
+    }
+
+    @Query("""
+            select b.id as id, b.holdExpiresAt as holdExpiresAt
+            from Booking b
+            where b.status = dev.temnikov.qa_test.entity.BookingStatus.PENDING
+              and b.holdExpiresAt is not null
+              and b.id > :afterId
+            order by b.id asc
+            """)
+    List<BookingHold> findHoldsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Cancels every PENDING booking whose hold has run out, stamped with the caller's change version.
+     */
+    @Modifying
+    @Query("""
+            update Booking b
+            set b.status = dev.temnikov.qa_test.entity.BookingStatus.CANCELLED,
+                b.holdExpiresAt = null,
+                b.version = b.version + 1,
+                b.changeVersion = :changeVersion
+            where b.status = dev.temnikov.qa_test.entity.BookingStatus.PENDING
+              and b.holdExpiresAt <= :now
+            """)
+    int expireHolds(@Param("now") LocalDateTime now, @Param("changeVersion") long changeVersion);
+
+    interface SessionSeats {
+        Long getSessionId();
+        long getSeats();
+    }
+
+    /**
+     * Bookings cancelled by the transaction that owns the change version, per session.
+     */
+    @Query("""
+            select b.session.id as sessionId, count(b) as seats
+            from Booking b
+            where b.changeVersion = :changeVersion
+              and b.status = dev.temnikov.qa_test.entity.BookingStatus.CANCELLED
+            group by b.session.id
+            """)
+    List<SessionSeats> countCancelledBySession(@Param("changeVersion") long changeVersion);
+
+    @Query("select coalesce(max(b.changeVersion), 0) from Booking b")
+    long findMaxChangeVersion();
+
+    @Query("""
+            select b
+            from Booking b
+            where b.changeVersion > :since
+              and b.changeVersion <= :upTo
+            order by b.changeVersion asc, b.id asc
+            """)
+    List<Booking> findChanged(@Param("since") long since, @Param("upTo") long upTo, Limit limit);
+
+    List<Booking> findByChangeVersionOrderByIdAsc(long changeVersion);
+
 }
@@ -0,0 +1,25 @@
+package dev.temnikov.qa_test.repository;
+
+import dev.temnikov.qa_test.entity.ChangeVersionMark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface ChangeVersionMarkRepository extends JpaRepository<ChangeVersionMark, String> {
+
+    /**
+     * Lowest safe version among the nodes that marked since the given time; null if none did.
+     */
+    @Query("select min(m.safeVersion) from ChangeVersionMark m where m.observedAt >= :liveSince")
+    Long findLowestSafeVersion(@Param("liveSince") LocalDateTime liveSince);
+
+    @Query("select coalesce(max(m.safeVersion), 0) from ChangeVersionMark m")
+    long findMaxSafeVersion();
+
+    @Modifying
+    @Query("delete from ChangeVersionMark m where m.observedAt < :before")
+    int deleteObservedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,7 +1,25 @@
 package dev.temnikov.qa_test.repository;
 
 import dev.temnikov.qa_test.entity.Course;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface CourseRepository extends JpaRepository<Course, Long> {
+
+    /**
+     * Same rows as {@code findAll(pageable)} without the count query.
+     */
+    Slice<Course> findAllBy(Pageable pageable);
+
+    List<Course> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    List<Course> findByIdLessThanOrderByIdDesc(long id, Limit limit);
+
+    @Query("select coalesce(max(c.changeVersion), 0) from Course c")
+    long findMaxChangeVersion();
 }
@@ -0,0 +1,43 @@
+package dev.temnikov.qa_test.repository;
+
+import dev.temnikov.qa_test.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    interface RevokedKey {
+        RevokedToken.Kind getKind();
+
+        String getTokenKey();
+    }
+
+    @Query("select t.kind as kind, t.tokenKey as tokenKey from RevokedToken t where t.expiresAt > :now")
+    List<RevokedKey> findActiveKeys(@Param("now") LocalDateTime now);
+
+    @Query("select t.kind as kind, t.tokenKey as tokenKey from RevokedToken t where t.revokedAt >= :since")
+    List<RevokedKey> findKeysRevokedSince(@Param("since") LocalDateTime since);
+
+    boolean existsByKindAndTokenKey(RevokedToken.Kind kind, String tokenKey);
+
+    /**
+     * Whether the subject's tokens issued at {@code issuedAt} are covered by a user-wide revocation.
+     */
+    @Query("""
+            select count(t) > 0
+            from RevokedToken t
+            where t.kind = dev.temnikov.qa_test.entity.RevokedToken.Kind.USER
+              and t.tokenKey = :subject
+              and t.revokedAt >= :issuedAt
+            """)
+    boolean isUserRevokedSince(@Param("subject") String subject, @Param("issuedAt") LocalDateTime issuedAt);
+
+    @Modifying
+    @Query("delete from RevokedToken t where t.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
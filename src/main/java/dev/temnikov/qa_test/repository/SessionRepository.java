@@ -1,23 +1,211 @@
 package dev.temnikov.qa_test.repository;
 
+import dev.temnikov.qa_test.entity.BookingStatus;
 import dev.temnikov.qa_test.entity.Session;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface SessionRepository extends JpaRepository<Session, Long> {
 
     @Query("""
-            select s
+            select case when count(s) > 0 then true else false end
             from Session s
             where s.course.id = :courseId
               and s.startTime < :endTime
               and s.endTime > :startTime
+              and (:excludeId is null or s.id <> :excludeId)
+            """)
+    boolean existsOverlappingSession(@Param("courseId") Long courseId,
+                                     @Param("startTime") LocalDateTime startTime,
+                                     @Param("endTime") LocalDateTime endTime,
+                                     @Param("excludeId") Long excludeId);
+
+    interface SessionInterval {
+        Long getId();
+        Long getCourseId();
+        LocalDateTime getStartTime();
+        LocalDateTime getEndTime();
+    }
+
+    @Query("""
+            select s.id as id, s.course.id as courseId, s.startTime as startTime, s.endTime as endTime
+            from Session s
+            where s.course.id = :courseId
+              and s.startTime < :to
+              and s.endTime > :from
+            """)
+    List<SessionInterval> findIntervalsInRange(@Param("courseId") Long courseId,
+                                               @Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to);
+
+    /**
+     * Sessions starting in [from, to), optionally narrowed to a course, a trainer and sessions
+     * with free seats. Served by the start_time / (course_id, start_time) indexes.
+     */
+    @Query(value = """
+            select s
+            from Session s
+            where s.startTime >= :from
+              and s.startTime < :to
+              and (:courseId is null or s.course.id = :courseId)
+              and (:trainerId is null or s.course.trainerId = :trainerId)
+              and (:onlyAvailable = false or s.bookedCount < s.capacity)
+            """,
+            countQuery = """
+            select count(s)
+            from Session s
+            where s.startTime >= :from
+              and s.startTime < :to
+              and (:courseId is null or s.course.id = :courseId)
+              and (:trainerId is null or s.course.trainerId = :trainerId)
+              and (:onlyAvailable = false or s.bookedCount < s.capacity)
+            """)
+    Page<Session> search(@Param("from") LocalDateTime from,
+                         @Param("to") LocalDateTime to,
+                         @Param("courseId") Long courseId,
+                         @Param("trainerId") Long trainerId,
+                         @Param("onlyAvailable") boolean onlyAvailable,
+                         Pageable pageable);
+
+    /**
+     * Same rows as {@code findAll(pageable)} without the count query.
+     */
+    Slice<Session> findAllBy(Pageable pageable);
+
+    List<Session> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    List<Session> findByIdLessThanOrderByIdDesc(long id, Limit limit);
+
+    List<Session> findAllByOrderByStartTimeAscIdAsc(Limit limit);
+
+    @Query("""
+            select s
+            from Session s
+            where s.startTime > :startTime
+               or (s.startTime = :startTime and s.id > :id)
+            order by s.startTime asc, s.id asc
+            """)
+    List<Session> findPageAfterStartTime(@Param("startTime") LocalDateTime startTime,
+                                         @Param("id") long id,
+                                         Limit limit);
+
+    @Query("""
+            select s
+            from Session s
+            where s.startTime < :startTime
+               or (s.startTime = :startTime and s.id < :id)
+            order by s.startTime desc, s.id desc
+            """)
+    List<Session> findPageBeforeStartTime(@Param("startTime") LocalDateTime startTime,
+                                          @Param("id") long id,
+                                          Limit limit);
+
+    interface SessionOccupancy {
+        Long getId();
+        Long getCourseId();
+        int getCapacity();
+        int getBookedCount();
+    }
+
+    @Query("""
+            select s.id as id, s.course.id as courseId, s.capacity as capacity, s.bookedCount as bookedCount
+            from Session s
+            where s.id in :ids
+            """)
+    List<SessionOccupancy> findOccupancies(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            select s.id as id, s.course.id as courseId, s.capacity as capacity, s.bookedCount as bookedCount
+            from Session s
+            where s.course.id = :courseId
+              and s.endTime > :now
+            order by s.startTime asc
+            """)
+    List<SessionOccupancy> findUpcomingOccupancies(@Param("courseId") Long courseId, @Param("now") LocalDateTime now);
+
+    @Query("select s.bookedCount from Session s where s.id = :id")
+    int findBookedCount(@Param("id") Long id);
+
+    /**
+     * Takes the given number of seats if they all fit into the session.
+     *
+     * @return 1 if the seats were reserved, 0 if they do not fit (or the session does not exist)
+     */
+    @Modifying
+    @Query("""
+            update Session s
+            set s.bookedCount = s.bookedCount + :seats,
+                s.changeVersion = :changeVersion
+            where s.id = :id
+              and s.bookedCount + :seats <= s.capacity
+            """)
+    int tryReserveSeats(@Param("id") Long id, @Param("seats") int seats, @Param("changeVersion") long changeVersion);
+
+    /**
+     * Takes one seat regardless of capacity (permissive status updates).
+     */
+    @Modifying
+    @Query("""
+            update Session s
+            set s.bookedCount = s.bookedCount + 1,
+                s.changeVersion = :changeVersion
+            where s.id = :id
+            """)
+    int forceReserveSeat(@Param("id") Long id, @Param("changeVersion") long changeVersion);
+
+    @Modifying
+    @Query("""
+            update Session s
+            set s.bookedCount = case when s.bookedCount > :seats then s.bookedCount - :seats else 0 end,
+                s.changeVersion = :changeVersion
+            where s.id = :id
+            """)
+    int releaseSeats(@Param("id") Long id, @Param("seats") int seats, @Param("changeVersion") long changeVersion);
+
+    /**
+     * Recomputes bookedCount from the bookings table for every session where it is off.
+     */
+    @Modifying
+    @Query("""
+            update Session s
+            set s.bookedCount = (
+                    select cast(count(b) as Integer)
+                    from Booking b
+                    where b.session.id = s.id
+                      and b.status in :statuses
+                ),
+                s.changeVersion = :changeVersion
+            where s.bookedCount <> (
+                select cast(count(b) as Integer)
+                from Booking b
+                where b.session.id = s.id
+                  and b.status in :statuses
+            )
             """)
-    List<Session> findOverlappingSessions(@Param("courseId") Long courseId,
-                                       @Param("startTime") LocalDateTime startTime,
-                                       @Param("endTime") LocalDateTime endTime);
-}
\ No newline at end of file
+    int recalculateBookedCounts(@Param("statuses") Collection<BookingStatus> statuses,
+                                @Param("changeVersion") long changeVersion);
+
+    @Query("select coalesce(max(s.changeVersion), 0) from Session s")
+    long findMaxChangeVersion();
+
+    @Query("""
+            select s
+            from Session s
+            where s.changeVersion > :since
+              and s.changeVersion <= :upTo
+            order by s.changeVersion asc, s.id asc
+            """)
+    List<Session> findChanged(@Param("since") long since, @Param("upTo") long upTo, Limit limit);
+
+    List<Session> findByChangeVersionOrderByIdAsc(long changeVersion);
+}
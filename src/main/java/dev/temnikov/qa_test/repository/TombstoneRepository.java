@@ -0,0 +1,38 @@
+package dev.temnikov.qa_test.repository;
+
+import dev.temnikov.qa_test.entity.Tombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+    @Query("""
+            select t.entityId
+            from Tombstone t
+            where t.entityType = :entityType
+              and t.changeVersion > :since
+              and t.changeVersion <= :upTo
+            order by t.changeVersion asc, t.entityId asc
+            """)
+    List<Long> findDeletedIds(@Param("entityType") Tombstone.EntityType entityType,
+                              @Param("since") long since,
+                              @Param("upTo") long upTo);
+
+    @Query("select coalesce(max(t.changeVersion), 0) from Tombstone t")
+    long findMaxChangeVersion();
+
+    @Query("select coalesce(max(t.changeVersion), 0) from Tombstone t where t.entityType = :entityType")
+    long findMaxChangeVersion(@Param("entityType") Tombstone.EntityType entityType);
+
+    @Query("select max(t.changeVersion) from Tombstone t where t.deletedAt < :before")
+    Long findMaxChangeVersionDeletedBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("delete from Tombstone t where t.changeVersion <= :upTo")
+    int deleteUpTo(@Param("upTo") long upTo);
+}
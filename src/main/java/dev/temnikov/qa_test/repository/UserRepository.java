@@ -1,11 +1,41 @@
 package dev.temnikov.qa_test.repository;
 
 import dev.temnikov.qa_test.entity.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
+
+    /**
+     * Same rows as {@code findAll(pageable)} without the count query.
+     */
+    Slice<User> findAllBy(Pageable pageable);
+
+    List<User> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    List<User> findByIdLessThanOrderByIdDesc(long id, Limit limit);
+
+    /**
+     * Replaces the stored hash only if it is still the one that was verified,
+     * so a concurrent password change is never overwritten.
+     */
+    @Modifying
+    @Query("""
+            update User u
+            set u.password = :newPassword
+            where u.email = :email and u.password = :oldPassword
+            """)
+    int replacePassword(@Param("email") String email,
+                        @Param("oldPassword") String oldPassword,
+                        @Param("newPassword") String newPassword);
 }
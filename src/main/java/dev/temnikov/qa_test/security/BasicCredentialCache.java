@@ -0,0 +1,79 @@
+package dev.temnikov.qa_test.security;
+
+import dev.temnikov.qa_test.service.BoundedTtlCache;
+import dev.temnikov.qa_test.service.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Short-lived record of HTTP Basic credentials that recently passed password verification.
+ * <p>
+ * Entries are keyed by an HMAC of email, password and the stored password hash under a random
+ * per-process key, so neither the password nor an offline-guessable hash of it is ever kept.
+ * Entries of a user are dropped on this node when the user is changed or deleted. Other nodes stop
+ * matching an old password as soon as their principal snapshot carries the new hash, i.e. within
+ * {@code security.principal-cache.ttl-seconds}, not this cache's TTL.
+ */
+@Component
+public class BasicCredentialCache {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec macKey;
+    /** HMAC key to the email it was verified for. */
+    private final BoundedTtlCache<String, String> entries;
+
+    public BasicCredentialCache(
+            @Value("${security.basic-auth-cache.ttl-seconds}") long ttlSeconds,
+            @Value("${security.basic-auth-cache.max-entries}") int maxEntries
+    ) {
+        this.entries = new BoundedTtlCache<>(Duration.ofSeconds(ttlSeconds), maxEntries);
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        this.macKey = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+    }
+
+    public boolean isVerified(String email, String password, String storedHash) {
+        return email.equals(entries.get(key(email, password, storedHash)));
+    }
+
+    public void remember(String email, String password, String storedHash) {
+        entries.put(key(email, password, storedHash), email);
+    }
+
+    /**
+     * Forgets every verified password of the user once the current transaction commits
+     * (or right away without one).
+     */
+    public void evict(String email) {
+        TransactionCallbacks.afterCommit(() -> entries.removeIf(email::equals));
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        entries.evictExpired();
+    }
+
+    private String key(String email, String password, String storedHash) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(macKey);
+            mac.update(email.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(storedHash.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is not available", ex);
+        }
+    }
+}
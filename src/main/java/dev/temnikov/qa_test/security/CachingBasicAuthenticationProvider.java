@@ -0,0 +1,43 @@
+package dev.temnikov.qa_test.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link DaoAuthenticationProvider} for HTTP Basic that skips the password check for credentials
+ * verified a moment ago. Account lookup and status checks still run on every request; the
+ * lookup itself is served by {@link PrincipalCache}.
+ */
+public class CachingBasicAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final BasicCredentialCache credentialCache;
+
+    public CachingBasicAuthenticationProvider(UserDetailsService userDetailsService,
+                                              PasswordEncoder passwordEncoder,
+                                              BasicCredentialCache credentialCache) {
+        super(userDetailsService);
+        setPasswordEncoder(passwordEncoder);
+        this.credentialCache = credentialCache;
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+                                                  UsernamePasswordAuthenticationToken authentication) {
+        String presentedPassword = authentication.getCredentials() == null
+                ? null
+                : authentication.getCredentials().toString();
+        String storedHash = userDetails.getPassword();
+        if (presentedPassword != null && storedHash != null
+                && credentialCache.isVerified(userDetails.getUsername(), presentedPassword, storedHash)) {
+            return;
+        }
+
+        super.additionalAuthenticationChecks(userDetails, authentication);
+        if (storedHash != null) {
+            credentialCache.remember(userDetails.getUsername(), presentedPassword, storedHash);
+        }
+    }
+}
@@ -5,22 +5,38 @@ import dev.temnikov.qa_test.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
 @RequiredArgsConstructor
-public class JpaUserDetailsService implements UserDetailsService {
+public class JpaUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) {
         // username = email
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
+        return principalCache.get(username, email -> {
+            User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
+            return new SecurityUser(user);
+        });
+    }
 
-        return new SecurityUser(user);
+    /**
+     * Stores a re-hashed password after a successful login whose stored hash used outdated
+     * settings (plain-text legacy rows or a lower BCrypt cost).
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.replacePassword(userDetails.getUsername(), userDetails.getPassword(), newPassword);
+        principalCache.evict(userDetails.getUsername());
+        return userDetails;
     }
 }
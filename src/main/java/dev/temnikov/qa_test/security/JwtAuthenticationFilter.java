@@ -1,5 +1,6 @@
 package dev.temnikov.qa_test.security;
 
+import dev.temnikov.qa_test.api.error.ApiErrorWriter;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
@@ -7,6 +8,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,11 +24,14 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenService jwtTokenService;
+    private final TokenRevocations tokenRevocations;
     private final UserDetailsService userDetailsService;
 
     public JwtAuthenticationFilter(JwtTokenService jwtTokenService,
+                                   TokenRevocations tokenRevocations,
                                    UserDetailsService userDetailsService) {
         this.jwtTokenService = jwtTokenService;
+        this.tokenRevocations = tokenRevocations;
         this.userDetailsService = userDetailsService;
     }
 
@@ -58,19 +63,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         try {
-            String username = jwtTokenService.extractUsername(token);
+            JwtTokenService.VerifiedToken verified = jwtTokenService.verify(token);
+            String username = verified.subject();
             if (username == null || username.isBlank()) {
                 sendUnauthorized(request, response, "Token subject is missing");
                 return;
             }
-
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-            if (!jwtTokenService.isTokenValid(token, userDetails)) {
-                sendUnauthorized(request, response, "Token is invalid");
+            if (tokenRevocations.isRevoked(verified)) {
+                sendUnauthorized(request, response, "Token has been revoked");
                 return;
             }
 
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+
             UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(
                             userDetails,
@@ -98,25 +103,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        response.setContentType("application/json");
-
-        String body = """
-                {"timestamp":"%s","message":"%s","path":"%s"}
-                """.formatted(
-                java.time.Instant.now(),
-                escape(message),
-                escape(request.getRequestURI())
-        );
-
-        response.getWriter().write(body);
-    }
-
-    private String escape(String s) {
-        if (s == null) {
-            return "";
-        }
-        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+        ApiErrorWriter.write(request, response, HttpStatus.UNAUTHORIZED, HttpHeaders.EMPTY, message);
     }
 
 }
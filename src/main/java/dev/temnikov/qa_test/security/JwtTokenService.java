@@ -1,27 +1,64 @@
 package dev.temnikov.qa_test.security;
 
+import dev.temnikov.qa_test.service.BoundedTtlCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
 
+/**
+ * Issues and verifies HS256 tokens.
+ * <p>
+ * The parser is built once and each token is parsed and verified once per request. Tokens that
+ * passed verification are remembered (by SHA-256 of the token, never the token itself) until they
+ * expire, so clients that send the same token again skip the signature check.
+ */
 @Component
 public class JwtTokenService {
 
+    /**
+     * Issue time in epoch milliseconds; {@code iat} only has seconds, which is too coarse to tell a
+     * token issued right after a user-wide revocation from one issued right before it.
+     */
+    static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+
+    public record IssuedToken(String token, Instant expiresAt) {
+    }
+
+    public record VerifiedToken(String subject, String tokenId, Instant issuedAt, Instant expiresAt) {
+
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+
     private final Key signingKey;
     private final long expirationSeconds;
+    private final JwtParser parser;
+    /** Kept for a full token lifetime, which outlasts every cached token; expiry is checked on each hit. */
+    private final BoundedTtlCache<String, VerifiedToken> verified;
 
     public JwtTokenService(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiration-seconds}") long expirationSeconds
+            @Value("${jwt.expiration-seconds}") long expirationSeconds,
+            @Value("${jwt.verified-cache.max-entries}") int maxCachedTokens
     ) {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         if (keyBytes.length < 32) {
@@ -29,48 +66,73 @@ public class JwtTokenService {
         }
         this.signingKey = Keys.hmacShaKeyFor(keyBytes);
         this.expirationSeconds = expirationSeconds;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verified = new BoundedTtlCache<>(Duration.ofSeconds(expirationSeconds), maxCachedTokens);
     }
 
-    public String generateToken(UserDetails userDetails) {
+    public IssuedToken generateToken(UserDetails userDetails) {
         Instant now = Instant.now();
-        Instant expiry = now.plusSeconds(expirationSeconds);
+        // JWT dates have second precision; report exactly what ends up in the token
+        Instant expiry = now.plusSeconds(expirationSeconds).truncatedTo(ChronoUnit.SECONDS);
 
-        return Jwts.builder()
+        String token = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(Date.from(now))
+                .claim(ISSUED_AT_MILLIS_CLAIM, now.toEpochMilli())
                 .setExpiration(Date.from(expiry))
                 .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
+        return new IssuedToken(token, expiry);
     }
 
-    public long extractExpirationEpochSeconds(String token) {
-        return getClaims(token)
-                .getExpiration()
-                .toInstant()
-                .getEpochSecond();
-    }
-
-    public String extractUsername(String token) {
-        return getClaims(token).getSubject();
-    }
+    /**
+     * Checks signature and expiry and returns the token's claims. Revocation is checked separately
+     * by {@link TokenRevocations}.
+     *
+     * @throws io.jsonwebtoken.ExpiredJwtException if the token has expired
+     * @throws io.jsonwebtoken.JwtException        if the token is malformed or its signature does not match
+     */
+    public VerifiedToken verify(String token) {
+        String key = hash(token);
+        VerifiedToken cached = verified.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(Instant.now())) {
+                return cached;
+            }
+            // let the parser report the expiry the usual way
+            verified.remove(key, cached);
+        }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        String username = extractUsername(token);
-        return username != null
-                && username.equals(userDetails.getUsername())
-                && !isTokenExpired(token);
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() == null || claims.getIssuedAt() == null) {
+            // such tokens are never issued here and could not be revoked
+            throw new MalformedJwtException("Token must carry iat and exp");
+        }
+        Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS_CLAIM, Long.class);
+        VerifiedToken result = new VerifiedToken(
+                claims.getSubject(),
+                claims.getId(),
+                issuedAtMillis != null ? Instant.ofEpochMilli(issuedAtMillis) : claims.getIssuedAt().toInstant(),
+                claims.getExpiration().toInstant()
+        );
+        verified.putIfAbsent(key, result);
+        return result;
     }
 
-    private boolean isTokenExpired(String token) {
-        Date expiration = getClaims(token).getExpiration();
-        return expiration.before(new Date());
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        verified.evictExpired();
     }
 
-    private Claims getClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
     }
 }
@@ -0,0 +1,27 @@
+package dev.temnikov.qa_test.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.Serial;
+
+/**
+ * Thrown when the password hashing pool is saturated; the client should retry later.
+ */
+public class PasswordHashRejectedException extends ResponseStatusException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashRejectedException() {
+        super(HttpStatus.TOO_MANY_REQUESTS, "Too many concurrent sign-in attempts, please retry");
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return headers;
+    }
+}
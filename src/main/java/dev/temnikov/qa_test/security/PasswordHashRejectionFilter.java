@@ -0,0 +1,35 @@
+package dev.temnikov.qa_test.security;
+
+import dev.temnikov.qa_test.api.error.ApiErrorWriter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Turns a saturated hashing pool during HTTP Basic or form login into 429.
+ * Authentication filters only handle authentication failures, so the exception would otherwise
+ * end up as 500.
+ */
+public class PasswordHashRejectionFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } catch (PasswordHashRejectedException ex) {
+            if (response.isCommitted()) {
+                throw ex;
+            }
+            ApiErrorWriter.write(request, response, ex.getStatusCode(), ex.getHeaders(), ex.getReason());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package dev.temnikov.qa_test.security;
+
+import dev.temnikov.qa_test.service.BoundedTtlCache;
+import dev.temnikov.qa_test.service.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting cache of loaded principals keyed by email.
+ * <p>
+ * Authenticated requests otherwise look the user up on every call. Entries are immutable
+ * {@link SecurityUser} snapshots, never the managed entity. They are dropped on this node as soon
+ * as the user is changed or deleted through {@link dev.temnikov.qa_test.service.UserService};
+ * other nodes keep serving the old role and password hash until the TTL runs out, so the TTL is
+ * the bound on cross-node staleness.
+ */
+@Component
+public class PrincipalCache {
+
+    private final BoundedTtlCache<String, SecurityUser> entries;
+
+    public PrincipalCache(
+            @Value("${security.principal-cache.ttl-seconds}") long ttlSeconds,
+            @Value("${security.principal-cache.max-entries}") int maxEntries
+    ) {
+        this.entries = new BoundedTtlCache<>(Duration.ofSeconds(ttlSeconds), maxEntries);
+    }
+
+    public SecurityUser get(String email, Function<String, SecurityUser> loader) {
+        SecurityUser cached = entries.get(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        SecurityUser loaded = loader.apply(email);
+        entries.put(email, loaded);
+        return loaded;
+    }
+
+    /**
+     * Forgets the user once the current transaction commits (or right away without one).
+     * Evicting earlier would let a concurrent request cache the row as it was before the write.
+     */
+    public void evict(String email) {
+        TransactionCallbacks.afterCommit(() -> entries.remove(email));
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        entries.evictExpired();
+    }
+}
@@ -0,0 +1,181 @@
+package dev.temnikov.qa_test.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher.pathPattern;
+
+/**
+ * Token buckets per route group and client.
+ * <p>
+ * Buckets are updated with compare-and-set, so concurrent requests of one client never block
+ * each other. A bucket that has refilled completely behaves exactly like a new one, so such
+ * buckets are dropped by the sweep without changing any decision; this keeps memory
+ * proportional to the clients that were active recently. Should the map still reach
+ * {@code max-keys}, new clients pass unthrottled rather than being refused for someone else's traffic.
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+
+    public enum RouteGroup {
+        AUTH(
+                pathPattern(HttpMethod.POST, "/api/auth/login"),
+                pathPattern(HttpMethod.POST, "/api/auth/refresh")
+        ),
+        BOOKING_WRITES(
+                pathPattern(HttpMethod.POST, "/api/bookings/**"),
+                pathPattern(HttpMethod.PATCH, "/api/bookings/**"),
+                pathPattern(HttpMethod.DELETE, "/api/bookings/**")
+        );
+
+        private final List<RequestMatcher> matchers;
+
+        RouteGroup(RequestMatcher... matchers) {
+            this.matchers = List.of(matchers);
+        }
+
+        boolean matches(HttpServletRequest request) {
+            for (RequestMatcher matcher : matchers) {
+                if (matcher.matches(request)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private record Limit(double capacity, double tokensPerNano) {
+    }
+
+    private final boolean enabled;
+    private final int maxKeys;
+    private final Map<RouteGroup, Limit> limits = new EnumMap<>(RouteGroup.class);
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    public RateLimiter(
+            @Value("${rate-limit.enabled}") boolean enabled,
+            @Value("${rate-limit.max-keys}") int maxKeys,
+            @Value("${rate-limit.auth.capacity}") int authCapacity,
+            @Value("${rate-limit.auth.refill-per-second}") double authRefillPerSecond,
+            @Value("${rate-limit.booking-writes.capacity}") int bookingCapacity,
+            @Value("${rate-limit.booking-writes.refill-per-second}") double bookingRefillPerSecond
+    ) {
+        this.enabled = enabled;
+        this.maxKeys = maxKeys;
+        limits.put(RouteGroup.AUTH, limit(authCapacity, authRefillPerSecond));
+        limits.put(RouteGroup.BOOKING_WRITES, limit(bookingCapacity, bookingRefillPerSecond));
+    }
+
+    /**
+     * @return the group the request is limited by, or null if it is not limited
+     */
+    public RouteGroup groupOf(HttpServletRequest request) {
+        if (!enabled) {
+            return null;
+        }
+        for (RouteGroup group : RouteGroup.values()) {
+            if (group.matches(request)) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes one token from the client's bucket.
+     *
+     * @return 0 if the request may proceed, otherwise the seconds until a token is available
+     */
+    public long tryAcquire(RouteGroup group, String clientKey) {
+        long now = System.nanoTime();
+        String key = group.ordinal() + ":" + clientKey;
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                sweep();
+                if (buckets.size() >= maxKeys) {
+                    log.warn("Rate limiter is tracking {} clients, letting {} through untracked", maxKeys, key);
+                    return 0;
+                }
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(limits.get(group), now));
+        }
+
+        long waitNanos = bucket.tryAcquire(now);
+        return waitNanos == 0 ? 0 : Math.max(TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L), 1);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static Limit limit(int capacity, double refillPerSecond) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("rate-limit capacity must be at least 1 and refill-per-second positive");
+        }
+        return new Limit(capacity, refillPerSecond / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static final class TokenBucket {
+
+        private record State(double tokens, long updatedAtNanos) {
+        }
+
+        private final Limit limit;
+        private final AtomicReference<State> state;
+
+        TokenBucket(Limit limit, long now) {
+            this.limit = limit;
+            this.state = new AtomicReference<>(new State(limit.capacity(), now));
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                State current = state.get();
+                double available = available(current, now);
+                if (available < 1) {
+                    return Math.max((long) Math.ceil((1 - available) / limit.tokensPerNano()), 1);
+                }
+                if (state.compareAndSet(current, new State(available - 1, Math.max(now, current.updatedAtNanos())))) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return available(state.get(), now) >= limit.capacity();
+        }
+
+        private double available(State current, long now) {
+            long elapsed = Math.max(now - current.updatedAtNanos(), 0);
+            return Math.min(limit.capacity(), current.tokens() + elapsed * limit.tokensPerNano());
+        }
+    }
+}
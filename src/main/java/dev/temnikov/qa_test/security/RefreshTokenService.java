@@ -0,0 +1,142 @@
+package dev.temnikov.qa_test.security;
+
+import dev.temnikov.qa_test.entity.RefreshToken;
+import dev.temnikov.qa_test.entity.User;
+import dev.temnikov.qa_test.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Long-lived refresh tokens that mint access tokens without a password check.
+ * <p>
+ * Tokens are single use: each refresh hands out a successor in the same family. Presenting a
+ * token that was already used means it leaked, so the whole family is revoked and its holder has
+ * to log in again.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    public record IssuedRefreshToken(String token, LocalDateTime expiresAt) {
+
+        public long expiresAtEpochSecond() {
+            return expiresAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+        }
+    }
+
+    public record Refreshed(User user, IssuedRefreshToken refreshToken) {
+    }
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final long ttlSeconds;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${jwt.refresh.ttl-seconds}") long ttlSeconds) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * Starts a new token family, e.g. after a login.
+     */
+    @Transactional
+    public IssuedRefreshToken issue(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for its successor. The token is claimed with a conditional update
+     * on {@code used_at is null}, so of several concurrent rotations exactly one wins and the rest
+     * are treated as reuse.
+     *
+     * @throws ResponseStatusException 401 if the token is unknown, expired or was already used
+     */
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public Refreshed rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token is missing");
+        }
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token is invalid"));
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!current.getExpiresAt().isAfter(now)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token has expired");
+        }
+        if (refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            // committed despite the exception, see noRollbackFor
+            refreshTokenRepository.deleteByFamilyId(current.getFamilyId());
+            log.warn("Refresh token reuse detected for user {}, token family revoked", current.getUser().getId());
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token was already used, please log in again");
+        }
+
+        return new Refreshed(current.getUser(), issue(current.getUser(), current.getFamilyId()));
+    }
+
+    /**
+     * Revokes the token and every other token of its family, e.g. on logout. Unknown tokens are ignored.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.deleteByFamilyId(token.getFamilyId()));
+    }
+
+    /**
+     * Revokes every refresh token of the user, e.g. after a password change.
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    @Scheduled(fixedDelay = 3_600_000)
+    @Transactional
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.debug("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private IssuedRefreshToken issue(User user, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash(rawToken));
+        token.setFamilyId(familyId);
+        token.setUser(user);
+        token.setExpiresAt(LocalDateTime.now().plusSeconds(ttlSeconds).withNano(0));
+        refreshTokenRepository.save(token);
+        return new IssuedRefreshToken(rawToken, token.getExpiresAt());
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
@@ -9,21 +9,44 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Collection;
 import java.util.List;
 
+/**
+ * Immutable snapshot of a user, safe to share between requests through {@link PrincipalCache}.
+ */
 public class SecurityUser implements UserDetails {
 
-    private final User user;
+    private final Long id;
+    private final String email;
+    private final String fullName;
+    private final UserRole role;
+    private final String passwordHash;
 
     public SecurityUser(User user) {
-        this.user = user;
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.fullName = user.getFullName();
+        this.role = user.getRole();
+        this.passwordHash = user.getPassword();
     }
 
+    /**
+     * A fresh detached copy on every call; changing it does not affect the principal.
+     */
     public User getUser() {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setFullName(fullName);
+        user.setRole(role);
+        user.setPassword(passwordHash);
         return user;
     }
 
+    public Long getId() {
+        return id;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        UserRole role = user.getRole();
         if (role == null) {
             return List.of();
         }
@@ -32,12 +55,12 @@ public class SecurityUser implements UserDetails {
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return passwordHash;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
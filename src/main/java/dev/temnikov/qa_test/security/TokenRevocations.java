@@ -0,0 +1,170 @@
+package dev.temnikov.qa_test.security;
+
+import dev.temnikov.qa_test.entity.RevokedToken;
+import dev.temnikov.qa_test.repository.RevokedTokenRepository;
+import dev.temnikov.qa_test.service.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Revoked access tokens, persisted in {@code revoked_tokens} and fronted by a Bloom filter.
+ * <p>
+ * Nearly every request carries a token that was never revoked; for those the filter answers
+ * with a few bit probes and no query. Only filter hits (real revocations and the rare false
+ * positive) are confirmed against the table. Bloom filters cannot forget, so the filter is
+ * rebuilt periodically from the rows that can still match a live token.
+ * <p>
+ * Revocations made by other instances are picked up by polling the rows revoked since the last
+ * poll every {@code poll-interval-millis}, so another node honours a revoked token for about that
+ * long. A row whose transaction commits more than {@link #POLL_OVERLAP} after its
+ * {@code revokedAt} is only seen by the next rebuild.
+ */
+@Slf4j
+@Component
+public class TokenRevocations {
+
+    private static final String TOKEN_PREFIX = "jti:";
+    private static final String USER_PREFIX = "sub:";
+    // revokedAt is set before commit, on the revoking node's clock
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(5);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long accessTokenTtlSeconds;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime pollFrom;
+
+    // guarded by this; keys revoked while a rebuild is reading the table
+    private List<String> addedDuringRebuild;
+
+    public TokenRevocations(
+            RevokedTokenRepository revokedTokenRepository,
+            @Value("${jwt.expiration-seconds}") long accessTokenTtlSeconds,
+            @Value("${security.revocation.expected-entries}") int expectedEntries,
+            @Value("${security.revocation.false-positive-rate}") double falsePositiveRate
+    ) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.accessTokenTtlSeconds = accessTokenTtlSeconds;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    public boolean isRevoked(JwtTokenService.VerifiedToken token) {
+        BloomFilter current = filter;
+        boolean tokenHit = token.tokenId() != null && current.mightContain(TOKEN_PREFIX + token.tokenId());
+        boolean userHit = current.mightContain(USER_PREFIX + token.subject());
+        if (!tokenHit && !userHit) {
+            return false;
+        }
+        return (tokenHit && revokedTokenRepository.existsByKindAndTokenKey(RevokedToken.Kind.TOKEN, token.tokenId()))
+                || (userHit && revokedTokenRepository.isUserRevokedSince(token.subject(), toLocal(token.issuedAt())));
+    }
+
+    /**
+     * Revokes a single token, e.g. on logout.
+     */
+    public void revokeToken(JwtTokenService.VerifiedToken token) {
+        if (token.tokenId() == null) {
+            return;
+        }
+        save(RevokedToken.Kind.TOKEN, token.tokenId(), toLocal(token.expiresAt()));
+        addAfterCommit(TOKEN_PREFIX + token.tokenId());
+    }
+
+    /**
+     * Revokes every token of the user issued so far, e.g. after a password change or deletion.
+     */
+    public void revokeUser(String email) {
+        // tokens issued now or earlier are all expired by then
+        save(RevokedToken.Kind.USER, email, LocalDateTime.now().plusSeconds(accessTokenTtlSeconds + 1));
+        addAfterCommit(USER_PREFIX + email);
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.rebuild-interval-millis}")
+    @Transactional
+    public void refresh() {
+        revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.poll-interval-millis}")
+    public void poll() {
+        LocalDateTime started = LocalDateTime.now();
+        List<RevokedTokenRepository.RevokedKey> keys = revokedTokenRepository.findKeysRevokedSince(pollFrom);
+        for (RevokedTokenRepository.RevokedKey key : keys) {
+            add(prefix(key.getKind()) + key.getTokenKey());
+        }
+        pollFrom = started.minus(POLL_OVERLAP);
+    }
+
+    private void rebuild() {
+        synchronized (this) {
+            addedDuringRebuild = new ArrayList<>();
+        }
+        pollFrom = LocalDateTime.now().minus(POLL_OVERLAP);
+        List<RevokedTokenRepository.RevokedKey> keys = revokedTokenRepository.findActiveKeys(LocalDateTime.now());
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, keys.size() * 2), falsePositiveRate);
+        for (RevokedTokenRepository.RevokedKey key : keys) {
+            rebuilt.put(prefix(key.getKind()) + key.getTokenKey());
+        }
+        synchronized (this) {
+            addedDuringRebuild.forEach(rebuilt::put);
+            addedDuringRebuild = null;
+            filter = rebuilt;
+        }
+        log.debug("Token revocation filter rebuilt with {} entries", keys.size());
+    }
+
+    /**
+     * Publishes a revocation to this node's filter once its row has committed (or right away
+     * without a transaction), so a rolled-back revocation leaves nothing behind.
+     */
+    private void addAfterCommit(String key) {
+        TransactionCallbacks.afterCommit(() -> add(key));
+    }
+
+    private synchronized void add(String key) {
+        filter.put(key);
+        if (addedDuringRebuild != null) {
+            addedDuringRebuild.add(key);
+        }
+    }
+
+    private void save(RevokedToken.Kind kind, String key, LocalDateTime expiresAt) {
+        RevokedToken revoked = new RevokedToken();
+        revoked.setKind(kind);
+        revoked.setTokenKey(key);
+        // compared with the token's millisecond issue time; a token issued within the same millisecond counts as revoked
+        revoked.setRevokedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+        revoked.setExpiresAt(expiresAt);
+        revokedTokenRepository.save(revoked);
+    }
+
+    private static String prefix(RevokedToken.Kind kind) {
+        return kind == RevokedToken.Kind.TOKEN ? TOKEN_PREFIX : USER_PREFIX;
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
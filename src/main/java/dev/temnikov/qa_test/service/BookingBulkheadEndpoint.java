@@ -0,0 +1,25 @@
+package dev.temnikov.qa_test.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/bookingbulkhead}: current state of the {@link BookingWriteBulkhead}.
+ */
+@Component
+@Endpoint(id = "bookingbulkhead")
+@RequiredArgsConstructor
+public class BookingBulkheadEndpoint {
+
+    public record State(double limit, int inFlight, int queued, long rejected) {
+    }
+
+    private final BookingWriteBulkhead bulkhead;
+
+    @ReadOperation
+    public State state() {
+        return new State(bulkhead.currentLimit(), bulkhead.inFlight(), bulkhead.queued(), bulkhead.rejected());
+    }
+}
@@ -0,0 +1,53 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.api.dto.RequestBookingDto;
+import dev.temnikov.qa_test.api.dto.ResponseBookingDto;
+import dev.temnikov.qa_test.entity.User;
+import dev.temnikov.qa_test.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous entry point for single-booking commands.
+ * Routes each command to the shard of its session, see {@link BookingShardExecutor}.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingCommandService {
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final BookingShardExecutor shardExecutor;
+    private final FullSessionHints fullSessionHints;
+
+    public CompletableFuture<ResponseBookingDto> create(RequestBookingDto dto, User currentUser, boolean joinWaitlist) {
+        // callers booking for someone else must still see the 403 first
+        boolean forSelf = dto.userId() == null || dto.userId().equals(currentUser.getId());
+        if (!joinWaitlist && forSelf && dto.sessionId() != null && fullSessionHints.isKnownFull(dto.sessionId())) {
+            return CompletableFuture.failedFuture(
+                    new ResponseStatusException(HttpStatus.CONFLICT, "Session capacity reached"));
+        }
+        return shardExecutor.submit(
+                dto.sessionId(),
+                () -> bookingService.create(dto, currentUser, joinWaitlist)
+        );
+    }
+
+    public CompletableFuture<ResponseBookingDto> cancel(Long id, User currentUser) {
+        return shardExecutor.submit(
+                () -> bookingRepository.findSessionIdById(id).orElse(null),
+                () -> bookingService.cancel(id, currentUser)
+        );
+    }
+
+    public CompletableFuture<ResponseBookingDto> updateStatus(Long id, String status) {
+        return shardExecutor.submit(
+                () -> bookingRepository.findSessionIdById(id).orElse(null),
+                () -> bookingService.updateStatus(id, status)
+        );
+    }
+}
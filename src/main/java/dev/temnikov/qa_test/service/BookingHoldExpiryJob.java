@@ -0,0 +1,69 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Drives {@link BookingHoldScheduler}: ticks the wheel, cancels expired holds with one statement
+ * and rebuilds the wheel from the bookings table on startup.
+ *
+ * A slow sweep over the table backs the wheel up for holds created on other nodes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingHoldExpiryJob {
+
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+
+    private final BookingHoldScheduler holdScheduler;
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+
+    @Scheduled(fixedDelayString = "${booking.hold.tick-millis}")
+    public void tick() {
+        // the wheel only says whether something ran out; one statement then cancels all expired holds
+        if (!holdScheduler.advance(System.currentTimeMillis()).isEmpty()) {
+            expire();
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${booking.hold.sweep-interval-millis}",
+            fixedDelayString = "${booking.hold.sweep-interval-millis}"
+    )
+    public void sweep() {
+        expire();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long afterId = 0;
+        int scheduled = 0;
+        List<BookingRepository.BookingHold> holds;
+        do {
+            holds = bookingRepository.findHoldsAfter(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            for (BookingRepository.BookingHold hold : holds) {
+                holdScheduler.schedule(hold.getId(), hold.getHoldExpiresAt());
+                afterId = hold.getId();
+            }
+            scheduled += holds.size();
+        } while (holds.size() == REBUILD_PAGE_SIZE);
+        log.info("Rebuilt booking hold wheel with {} holds", scheduled);
+    }
+
+    private void expire() {
+        int cancelled = bookingService.expireHolds();
+        if (cancelled > 0) {
+            log.info("Cancelled {} expired booking holds", cancelled);
+        }
+    }
+}
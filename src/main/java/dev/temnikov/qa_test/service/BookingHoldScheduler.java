@@ -0,0 +1,99 @@
+package dev.temnikov.qa_test.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel for PENDING booking holds.
+ *
+ * Scheduling is O(1): the hold goes to a lock-free inbox and is placed into its bucket by the
+ * thread that advances the wheel. Each tick only looks at one bucket, so the cost of a tick
+ * does not depend on the total number of outstanding holds.
+ *
+ * The wheel only produces candidates; whoever cancels them must re-check the booking state,
+ * since a hold may have been confirmed or cancelled in the meantime.
+ */
+@Component
+public class BookingHoldScheduler {
+
+    private record Hold(Long bookingId, long deadlineTick) {
+    }
+
+    private final long holdTtlSeconds;
+    private final long tickMillis;
+    private final int mask;
+    private final List<Queue<Hold>> buckets;
+    private final Queue<Hold> inbox = new ConcurrentLinkedQueue<>();
+
+    private long currentTick = -1;
+
+    public BookingHoldScheduler(
+            @Value("${booking.hold.ttl-seconds}") long holdTtlSeconds,
+            @Value("${booking.hold.tick-millis}") long tickMillis,
+            @Value("${booking.hold.wheel-size}") int wheelSize
+    ) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("booking.hold.wheel-size must be a power of two");
+        }
+        this.holdTtlSeconds = holdTtlSeconds;
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Expiry for a hold that starts now, in the same precision the database stores.
+     */
+    public LocalDateTime newHoldExpiry() {
+        return LocalDateTime.now().plusSeconds(holdTtlSeconds).withNano(0);
+    }
+
+    public void schedule(Long bookingId, LocalDateTime expiresAt) {
+        long deadlineMillis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        inbox.offer(new Hold(bookingId, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis)));
+    }
+
+    /**
+     * Moves the wheel up to the given time and returns the bookings whose hold has run out.
+     * Only one thread advances the wheel at a time.
+     */
+    public synchronized List<Long> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<Long> expired = new ArrayList<>();
+
+        for (Hold hold = inbox.poll(); hold != null; hold = inbox.poll()) {
+            if (hold.deadlineTick() <= targetTick) {
+                expired.add(hold.bookingId());
+            } else {
+                buckets.get((int) (hold.deadlineTick() & mask)).offer(hold);
+            }
+        }
+
+        // after a long pause one full rotation is enough to see every bucket
+        long fromTick = Math.max(currentTick + 1, targetTick - mask);
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            Queue<Hold> bucket = buckets.get((int) (tick & mask));
+            for (int i = bucket.size(); i > 0; i--) {
+                Hold hold = bucket.poll();
+                if (hold.deadlineTick() <= targetTick) {
+                    expired.add(hold.bookingId());
+                } else {
+                    bucket.offer(hold);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expired;
+    }
+}
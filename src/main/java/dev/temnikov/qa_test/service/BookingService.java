@@ -1,58 +1,128 @@
 package dev.temnikov.qa_test.service;
 
+import dev.temnikov.qa_test.api.dto.CursorPage;
+import dev.temnikov.qa_test.api.dto.RequestBookingBatchDto;
+import dev.temnikov.qa_test.api.dto.RequestBookingBulkStatusDto;
 import dev.temnikov.qa_test.api.dto.RequestBookingDto;
+import dev.temnikov.qa_test.api.dto.ResponseBookingBatchDto;
+import dev.temnikov.qa_test.api.dto.ResponseBookingBulkStatusDto;
 import dev.temnikov.qa_test.api.dto.ResponseBookingDto;
+import dev.temnikov.qa_test.api.dto.ResponseChangesDto;
 import dev.temnikov.qa_test.api.dto.PageResponse;
 import dev.temnikov.qa_test.api.mapper.BookingMapper;
+import dev.temnikov.qa_test.api.pagination.KeysetPages;
+import dev.temnikov.qa_test.api.pagination.PageCursor;
+import dev.temnikov.qa_test.api.pagination.PageResponses;
+import dev.temnikov.qa_test.api.pagination.TotalMode;
 import dev.temnikov.qa_test.entity.*;
 import dev.temnikov.qa_test.repository.BookingRepository;
+import dev.temnikov.qa_test.repository.TombstoneRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BookingService {
 
+    public static final int MAX_BATCH_SIZE = 200;
+
     private final BookingRepository bookingRepository;
+    private final TombstoneRepository tombstoneRepository;
     private final SessionService sessionService;
     private final UserService userService;
+    private final WaitlistService waitlistService;
+    private final BookingHoldScheduler holdScheduler;
+    private final CountCache countCache;
+    private final ChangeVersions changeVersions;
+    private final FullSessionHints fullSessionHints;
 
+    public PageResponse<ResponseBookingDto> getAll(Pageable pageable, TotalMode totals) {
+        return switch (totals) {
+            case EXACT -> PageResponses.of(bookingRepository.findAll(pageable), BookingMapper::toResponseDto);
+            case NONE -> PageResponses.of(bookingRepository.findAllBy(pageable), null, BookingMapper::toResponseDto);
+            case CACHED -> PageResponses.of(
+                    bookingRepository.findAllBy(pageable),
+                    countCache.get("bookings", bookingRepository::count),
+                    BookingMapper::toResponseDto
+            );
+        };
+    }
+
+    /**
+     * Keyset mode of {@link #getAll(Pageable, TotalMode)}: ordered by id, no offset and no count query.
+     */
+    public CursorPage<ResponseBookingDto> getAllByCursor(String cursor, int size) {
+        PageCursor position = PageCursor.decode(cursor, "id");
+        Limit limit = Limit.of(PageCursor.validateSize(size) + 1);
+        List<Booking> rows;
+        if (position == null) {
+            rows = bookingRepository.findByIdGreaterThanOrderByIdAsc(0, limit);
+        } else if (position.backward()) {
+            rows = bookingRepository.findByIdLessThanOrderByIdDesc(position.id(), limit);
+        } else {
+            rows = bookingRepository.findByIdGreaterThanOrderByIdAsc(position.id(), limit);
+        }
+        return KeysetPages.toPage(rows, size, position, "id",
+                row -> String.valueOf(row.getId()), Booking::getId, BookingMapper::toResponseDto);
+    }
 
-    public PageResponse<ResponseBookingDto> getAll(Pageable pageable) {
-        Page<Booking> page = bookingRepository.findAll(pageable);
 
-        return new PageResponse<>(
-                page.getContent()
-                        .stream()
-                        .map(BookingMapper::toResponseDto)
-                        .toList(),
-                page.getNumber(),
-                page.getSize(),
-                page.getTotalElements(),
-                page.getTotalPages(),
-                page.isLast()
+    /**
+     * Delta sync: bookings written and deleted after the given token.
+     */
+    @Transactional(readOnly = true)
+    public ResponseChangesDto<ResponseBookingDto> getChanges(Long since) {
+        long upTo = changeVersions.readUpTo(since);
+        return ChangeFeed.read(
+                since,
+                upTo,
+                (from, limit) -> bookingRepository.findChanged(from, upTo, limit),
+                bookingRepository::findByChangeVersionOrderByIdAsc,
+                Booking::getChangeVersion,
+                (from, to) -> tombstoneRepository.findDeletedIds(Tombstone.EntityType.BOOKING, from, to),
+                BookingMapper::toResponseDto
         );
     }
 
-
     public ResponseBookingDto getById(Long id) {
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking not found"));
-        return BookingMapper.toResponseDto(booking);
+        return BookingMapper.toResponseDto(booking, waitlistService.positionOf(booking));
+    }
+
+    public ResponseBookingDto create(RequestBookingDto dto, User currentUser) {
+        return create(dto, currentUser, false);
     }
 
     /**
      * Only owner (dto.userId) or ADMIN can create booking.
      * Session must be in the future.
+     * If the session is full and joinWaitlist is set, the booking is queued as WAITLISTED instead of rejected.
      */
-    public ResponseBookingDto create(RequestBookingDto dto, User currentUser) {
+    @Transactional
+    public ResponseBookingDto create(RequestBookingDto dto, User currentUser, boolean joinWaitlist) {
         if (dto.sessionId() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sessionId is required");
         }
@@ -80,28 +150,209 @@ public class BookingService {
             );
         }
 
-        long activeBookings = bookingRepository.countBySessionIdAndStatusIn(
-                session.getId(),
-                List.of(BookingStatus.PENDING, BookingStatus.CONFIRMED)
-        );
-
-        if (activeBookings >= session.getCapacity()) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Session capacity reached");
-        }
-
         Booking booking = new Booking();
         booking.setUser(user);
         booking.setSession(session);
-        booking.setStatus(BookingStatus.PENDING);
+
+        // the loaded row already tells us about full sessions; the conditional update settles races
+        if (session.getBookedCount() < session.getCapacity()
+                && sessionService.tryReserveSeat(session.getId())) {
+            booking.setStatus(BookingStatus.PENDING);
+            booking.setHoldExpiresAt(holdScheduler.newHoldExpiry());
+        } else if (joinWaitlist) {
+            fullSessionHints.markFull(session.getId());
+            booking.setStatus(BookingStatus.WAITLISTED);
+            booking.setWaitlistedAt(waitlistTimestamp());
+        } else {
+            fullSessionHints.markFull(session.getId());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Session capacity reached");
+        }
 
         Booking saved = bookingRepository.save(booking);
-        return BookingMapper.toResponseDto(saved);
+        scheduleHold(saved);
+        return BookingMapper.toResponseDto(saved, waitlistService.positionOf(saved));
+    }
+
+    /**
+     * Creates several bookings at once. Every item follows the same rules as {@link #create}.
+     * Users and sessions are loaded with one query each and seats are reserved with one
+     * conditional update per session.
+     * In ALL_OR_NOTHING mode (default) nothing is created unless every item succeeds.
+     */
+    @Transactional
+    public ResponseBookingBatchDto createBatch(RequestBookingBatchDto dto, User currentUser) {
+        if (currentUser == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Current user is required");
+        }
+        if (dto == null || dto.items() == null || dto.items().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "items are required");
+        }
+        if (dto.items().size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BATCH_SIZE + " items are allowed per batch"
+            );
+        }
+
+        List<RequestBookingDto> items = dto.items();
+        boolean allOrNothing = dto.mode() != RequestBookingBatchDto.Mode.PARTIAL;
+
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> sessionIds = new HashSet<>();
+        for (RequestBookingDto item : items) {
+            if (item == null) {
+                continue;
+            }
+            userIds.add(item.userId() != null ? item.userId() : currentUser.getId());
+            if (item.sessionId() != null) {
+                sessionIds.add(item.sessionId());
+            }
+        }
+        Map<Long, User> users = userService.getEntitiesByIds(userIds);
+        Map<Long, Session> sessions = sessionService.getEntitiesByIds(sessionIds);
+
+        ResponseBookingBatchDto.Item[] results = new ResponseBookingBatchDto.Item[items.size()];
+        Map<Long, List<Integer>> acceptedBySessionId = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                Session session = validateBatchItem(items.get(i), currentUser, users, sessions, now);
+                acceptedBySessionId.computeIfAbsent(session.getId(), id -> new ArrayList<>()).add(i);
+            } catch (ResponseStatusException ex) {
+                results[i] = failedItem(i, ex.getStatusCode().value(), ex.getReason());
+            }
+        }
+
+        // capacity check against the loaded rows, one group per session
+        for (Iterator<Map.Entry<Long, List<Integer>>> it = acceptedBySessionId.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, List<Integer>> entry = it.next();
+            Session session = sessions.get(entry.getKey());
+            List<Integer> indexes = entry.getValue();
+
+            int free = Math.max(0, session.getCapacity() - session.getBookedCount());
+            int accepted = allOrNothing && indexes.size() > free ? 0 : Math.min(free, indexes.size());
+            for (int i : indexes.subList(accepted, indexes.size())) {
+                results[i] = failedItem(i, HttpStatus.CONFLICT.value(), "Session capacity reached");
+            }
+            if (accepted == 0) {
+                it.remove();
+            } else {
+                entry.setValue(indexes.subList(0, accepted));
+            }
+        }
+
+        if (allOrNothing && hasFailures(results)) {
+            return abortBatch(results);
+        }
+
+        List<Booking> bookings = new ArrayList<>();
+        List<Integer> bookingIndexes = new ArrayList<>();
+        LocalDateTime holdExpiresAt = holdScheduler.newHoldExpiry();
+        for (Map.Entry<Long, List<Integer>> entry : acceptedBySessionId.entrySet()) {
+            Session session = sessions.get(entry.getKey());
+            List<Integer> indexes = entry.getValue();
+
+            if (!sessionService.tryReserveSeats(session.getId(), indexes.size())) {
+                // lost a race against concurrent bookings for this session
+                for (int i : indexes) {
+                    results[i] = failedItem(i, HttpStatus.CONFLICT.value(), "Session capacity reached");
+                }
+                if (allOrNothing) {
+                    TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                    return abortBatch(results);
+                }
+                continue;
+            }
+
+            for (int i : indexes) {
+                RequestBookingDto item = items.get(i);
+                Booking booking = new Booking();
+                booking.setUser(users.get(item.userId() != null ? item.userId() : currentUser.getId()));
+                booking.setSession(session);
+                booking.setStatus(BookingStatus.PENDING);
+                booking.setHoldExpiresAt(holdExpiresAt);
+                bookings.add(booking);
+                bookingIndexes.add(i);
+            }
+        }
+
+        List<Booking> saved = bookingRepository.saveAll(bookings);
+        for (int k = 0; k < saved.size(); k++) {
+            scheduleHold(saved.get(k));
+            int i = bookingIndexes.get(k);
+            results[i] = new ResponseBookingBatchDto.Item(
+                    i, HttpStatus.CREATED.value(), null, BookingMapper.toResponseDto(saved.get(k))
+            );
+        }
+
+        return new ResponseBookingBatchDto(List.of(results), saved.size(), items.size() - saved.size());
+    }
+
+    private Session validateBatchItem(RequestBookingDto item,
+                                      User currentUser,
+                                      Map<Long, User> users,
+                                      Map<Long, Session> sessions,
+                                      LocalDateTime now) {
+        if (item == null || item.sessionId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sessionId is required");
+        }
+
+        Long targetUserId = item.userId() != null ? item.userId() : currentUser.getId();
+        if (!isOwnerOrAdmin(targetUserId, currentUser)) {
+            throw new ResponseStatusException(
+                    HttpStatus.FORBIDDEN,
+                    "Only owning user or admin may create booking"
+            );
+        }
+        if (!users.containsKey(targetUserId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+
+        Session session = sessions.get(item.sessionId());
+        if (session == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Session not found");
+        }
+        if (!session.getStartTime().isAfter(now)) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Session must be in the future to create booking"
+            );
+        }
+        return session;
+    }
+
+    private ResponseBookingBatchDto.Item failedItem(int index, int status, String message) {
+        return new ResponseBookingBatchDto.Item(index, status, message, null);
+    }
+
+    private boolean hasFailures(ResponseBookingBatchDto.Item[] results) {
+        for (ResponseBookingBatchDto.Item result : results) {
+            if (result != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ResponseBookingBatchDto abortBatch(ResponseBookingBatchDto.Item[] results) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = failedItem(
+                        i,
+                        HttpStatus.FAILED_DEPENDENCY.value(),
+                        "Not created because another item in the batch failed"
+                );
+            }
+        }
+        return new ResponseBookingBatchDto(List.of(results), 0, results.length);
     }
 
     /**
      * Only owner or ADMIN may cancel.
      * Session must be in the future to cancel.
      */
+    @Transactional
     public ResponseBookingDto cancel(Long id, User currentUser) {
         if (currentUser == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Current user is required");
@@ -127,29 +378,212 @@ public class BookingService {
             );
         }
 
+        BookingStatus previous = booking.getStatus();
         booking.setStatus(BookingStatus.CANCELLED);
+        booking.setHoldExpiresAt(null);
 
         Booking saved = bookingRepository.save(booking);
+        if (previous.isActive()) {
+            sessionService.releaseSeat(session.getId());
+            waitlistService.promote(session.getId());
+        }
         return BookingMapper.toResponseDto(saved);
     }
 
     /**
      * Simple status update (no owner/admin rules here unless you want to add them later).
      */
+    @Transactional
     public ResponseBookingDto updateStatus(Long id, String status) {
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking not found"));
 
-        BookingStatus newStatus;
+        BookingStatus newStatus = parseStatus(status);
+
+        BookingStatus previous = booking.getStatus();
+        booking.setStatus(newStatus);
+        if (newStatus == BookingStatus.WAITLISTED && previous != BookingStatus.WAITLISTED) {
+            booking.setWaitlistedAt(waitlistTimestamp());
+        }
+        if (newStatus != BookingStatus.PENDING) {
+            booking.setHoldExpiresAt(null);
+        } else if (previous != BookingStatus.PENDING) {
+            booking.setHoldExpiresAt(holdScheduler.newHoldExpiry());
+        }
+        Booking saved = bookingRepository.save(booking);
+        if (previous != BookingStatus.PENDING) {
+            scheduleHold(saved);
+        }
+
+        Long sessionId = booking.getSession().getId();
+        if (previous.isActive() && !newStatus.isActive()) {
+            sessionService.releaseSeat(sessionId);
+            waitlistService.promote(sessionId);
+        } else if (!previous.isActive() && newStatus.isActive()) {
+            sessionService.forceReserveSeat(sessionId);
+        }
+        return BookingMapper.toResponseDto(saved, waitlistService.positionOf(saved));
+    }
+
+    /**
+     * Applies one status to many bookings. Transitions are validated in memory
+     * (see {@link BookingStatus#canTransitionTo}), rows are changed with one set-based update per
+     * previous status, and freed seats are released once per session.
+     */
+    @Transactional
+    public ResponseBookingBulkStatusDto updateStatuses(RequestBookingBulkStatusDto dto) {
+        if (dto == null || dto.ids() == null || dto.ids().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids are required");
+        }
+        if (dto.ids().size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BATCH_SIZE + " ids are allowed per request"
+            );
+        }
+        BookingStatus target = parseStatus(dto.status());
+
+        List<Long> ids = dto.ids().stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, Booking> bookings = bookingRepository.findAllByIdForUpdate(ids).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        Map<Long, ResponseBookingBulkStatusDto.Item> results = new LinkedHashMap<>();
+        Map<BookingStatus, List<Booking>> changesByPreviousStatus = new EnumMap<>(BookingStatus.class);
+        for (Long id : ids) {
+            Booking booking = bookings.get(id);
+            if (booking == null) {
+                results.put(id, bulkItem(id, HttpStatus.NOT_FOUND, "Booking not found", null));
+            } else if (booking.getStatus() == target) {
+                results.put(id, bulkItem(id, HttpStatus.OK, null, target));
+            } else if (!booking.getStatus().canTransitionTo(target)) {
+                results.put(id, bulkItem(
+                        id,
+                        HttpStatus.CONFLICT,
+                        "Cannot change status from " + booking.getStatus() + " to " + target,
+                        booking.getStatus()
+                ));
+            } else {
+                changesByPreviousStatus.computeIfAbsent(booking.getStatus(), s -> new ArrayList<>()).add(booking);
+                results.put(id, bulkItem(id, HttpStatus.OK, null, target));
+            }
+        }
+
+        int updated = applyStatusChanges(changesByPreviousStatus, target);
+        int failed = (int) results.values().stream().filter(item -> item.status() != HttpStatus.OK.value()).count();
+        return new ResponseBookingBulkStatusDto(List.copyOf(results.values()), updated, failed);
+    }
+
+    /**
+     * Confirms every PENDING booking of a session in one statement.
+     * Allowed for ADMIN and for the trainer of the session's course.
+     */
+    @Transactional
+    public ResponseBookingBulkStatusDto confirmSession(Long sessionId, User currentUser) {
+        if (currentUser == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Current user is required");
+        }
+        Session session = sessionService.getEntityById(sessionId);
+        if (currentUser.getRole() != UserRole.ADMIN
+                && !currentUser.getId().equals(session.getCourse().getTrainerId())) {
+            throw new ResponseStatusException(
+                    HttpStatus.FORBIDDEN,
+                    "Only admin or the course trainer may confirm session bookings"
+            );
+        }
+
+        List<Booking> pending = bookingRepository.findBySessionIdAndStatusForUpdate(sessionId, BookingStatus.PENDING);
+        int updated = applyStatusChanges(Map.of(BookingStatus.PENDING, pending), BookingStatus.CONFIRMED);
+
+        List<ResponseBookingBulkStatusDto.Item> items = pending.stream()
+                .map(b -> bulkItem(b.getId(), HttpStatus.OK, null, BookingStatus.CONFIRMED))
+                .toList();
+        return new ResponseBookingBulkStatusDto(items, updated, 0);
+    }
+
+    /**
+     * Rows must be locked by the caller, so every update matches exactly the given bookings.
+     */
+    private int applyStatusChanges(Map<BookingStatus, List<Booking>> changesByPreviousStatus, BookingStatus target) {
+        int updated = 0;
+        Map<Long, Integer> releasedBySessionId = new HashMap<>();
+
+        for (Map.Entry<BookingStatus, List<Booking>> entry : changesByPreviousStatus.entrySet()) {
+            BookingStatus previous = entry.getKey();
+            List<Booking> bookings = entry.getValue();
+            if (bookings.isEmpty()) {
+                continue;
+            }
+            updated += bookingRepository.updateStatuses(
+                    bookings.stream().map(Booking::getId).toList(),
+                    previous,
+                    target,
+                    changeVersions.current()
+            );
+            if (previous.isActive() && !target.isActive()) {
+                for (Booking booking : bookings) {
+                    releasedBySessionId.merge(booking.getSession().getId(), 1, Integer::sum);
+                }
+            }
+        }
+
+        releasedBySessionId.forEach((sessionId, seats) -> {
+            sessionService.releaseSeats(sessionId, seats);
+            waitlistService.promote(sessionId);
+        });
+        return updated;
+    }
+
+    private ResponseBookingBulkStatusDto.Item bulkItem(Long id, HttpStatus status, String message, BookingStatus bookingStatus) {
+        return new ResponseBookingBulkStatusDto.Item(
+                id,
+                status.value(),
+                message,
+                bookingStatus != null ? bookingStatus.name() : null
+        );
+    }
+
+    private BookingStatus parseStatus(String status) {
         try {
-            newStatus = BookingStatus.valueOf(status);
-        } catch (IllegalArgumentException ex) {
+            return BookingStatus.valueOf(status);
+        } catch (IllegalArgumentException | NullPointerException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid status: " + status);
         }
+    }
 
-        booking.setStatus(newStatus);
-        Booking saved = bookingRepository.save(booking);
-        return BookingMapper.toResponseDto(saved);
+    /**
+     * Cancels every PENDING booking whose hold has run out with one statement, then releases
+     * the seats of the affected sessions and promotes their waitlists.
+     * Bookings confirmed or cancelled in the meantime are not matched by the update.
+     *
+     * @return number of cancelled bookings
+     */
+    @Transactional
+    public int expireHolds() {
+        long changeVersion = changeVersions.current();
+        int cancelled = bookingRepository.expireHolds(LocalDateTime.now(), changeVersion);
+        if (cancelled == 0) {
+            return 0;
+        }
+
+        // the change version is unique to this transaction, so it identifies exactly the rows cancelled above
+        for (BookingRepository.SessionSeats released : bookingRepository.countCancelledBySession(changeVersion)) {
+            sessionService.releaseSeats(released.getSessionId(), (int) released.getSeats());
+            waitlistService.promote(released.getSessionId());
+        }
+        return cancelled;
+    }
+
+    private void scheduleHold(Booking booking) {
+        if (booking.getStatus() == BookingStatus.PENDING && booking.getHoldExpiresAt() != null) {
+            holdScheduler.schedule(booking.getId(), booking.getHoldExpiresAt());
+        }
+    }
+
+    /**
+     * Millisecond precision so the in-memory value equals what the database stores.
+     */
+    private LocalDateTime waitlistTimestamp() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
     }
 
     private boolean isOwnerOrAdmin(Long ownerId, User currentUser) {
@@ -162,10 +596,15 @@ public class BookingService {
         return ownerId.equals(currentUser.getId());
     }
 
+    @Transactional
     public void delete(Long id) {
-        if (!bookingRepository.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking not found");
+        Booking booking = bookingRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking not found"));
+        bookingRepository.delete(booking);
+        changeVersions.recordDeletion(Tombstone.EntityType.BOOKING, id);
+        if (booking.getStatus().isActive()) {
+            sessionService.releaseSeat(booking.getSession().getId());
+            waitlistService.promote(booking.getSession().getId());
         }
-        bookingRepository.deleteById(id);
     }
 }
@@ -0,0 +1,95 @@
+package dev.temnikov.qa_test.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer shards for booking commands.
+ *
+ * Commands for the same session always land on the same single-threaded executor, so they run one
+ * after another instead of racing on the same session row. Different sessions spread over the shards.
+ * When sharding is disabled commands run on the calling thread.
+ */
+@Component
+public class BookingShardExecutor {
+
+    private final ExecutorService[] shards;
+
+    public BookingShardExecutor(
+            @Value("${booking.sharding.enabled}") boolean enabled,
+            @Value("${booking.sharding.shards}") int shardCount,
+            @Value("${booking.sharding.queue-capacity}") int queueCapacity
+    ) {
+        if (!enabled) {
+            this.shards = new ExecutorService[0];
+            return;
+        }
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            String name = "booking-shard-" + i;
+            shards[i] = new ThreadPoolExecutor(
+                    1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, name),
+                    new ThreadPoolExecutor.AbortPolicy()
+            );
+        }
+    }
+
+    /**
+     * Runs the command on the shard owning the session.
+     * A null session id (invalid request) runs inline so that validation errors surface as usual.
+     */
+    public <T> CompletableFuture<T> submit(Long sessionId, Supplier<T> command) {
+        return submit(() -> sessionId, command);
+    }
+
+    /**
+     * Same as {@link #submit(Long, Supplier)}, for commands whose session has to be looked up first;
+     * the lookup only runs when sharding is enabled.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<Long> sessionIdLookup, Supplier<T> command) {
+        Long sessionId = shards.length == 0 ? null : sessionIdLookup.get();
+        if (sessionId == null) {
+            try {
+                return CompletableFuture.completedFuture(command.get());
+            } catch (RuntimeException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+        try {
+            return CompletableFuture.supplyAsync(command, shardFor(sessionId));
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.failedFuture(new ResponseStatusException(
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many pending booking requests for this session, please retry"
+            ));
+        }
+    }
+
+    private ExecutorService shardFor(Long sessionId) {
+        return shards[Math.floorMod(Long.hashCode(sessionId), shards.length)];
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        for (ExecutorService shard : shards) {
+            shard.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
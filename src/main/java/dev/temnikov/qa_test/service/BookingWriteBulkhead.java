@@ -0,0 +1,211 @@
+package dev.temnikov.qa_test.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.Serial;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive concurrency limit for booking mutations.
+ * <p>
+ * Booking writes hold a JDBC connection for their whole transaction; when a popular session opens
+ * they would otherwise take every connection and starve reads. {@code max-limit} stays below
+ * the pool size so reads always find a connection. Within that, the limit follows AIMD: every
+ * fast completion under load adds {@code 1/limit} (about one per round of requests), a completion slower
+ * than {@code target-latency-millis} or one that could not get a connection cuts it by
+ * {@code backoff-ratio}. Requests over the limit wait up to {@code queue-timeout-millis} in a
+ * short queue and are then refused with 503.
+ */
+@Component
+public class BookingWriteBulkhead {
+
+    private final double minLimit;
+    private final double maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+    private final long queueTimeoutNanos;
+    private final int maxQueued;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    // guarded by lock
+    private double limit;
+    private int inFlight;
+    private int queued;
+
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    public BookingWriteBulkhead(
+            @Value("${booking.bulkhead.initial-limit}") int initialLimit,
+            @Value("${booking.bulkhead.min-limit}") int minLimit,
+            @Value("${booking.bulkhead.max-limit}") int maxLimit,
+            @Value("${booking.bulkhead.target-latency-millis}") long targetLatencyMillis,
+            @Value("${booking.bulkhead.backoff-ratio}") double backoffRatio,
+            @Value("${booking.bulkhead.queue-timeout-millis}") long queueTimeoutMillis,
+            @Value("${booking.bulkhead.max-queued}") int maxQueued,
+            MeterRegistry meterRegistry
+    ) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("booking.bulkhead limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.backoffRatio = backoffRatio;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+        this.maxQueued = maxQueued;
+
+        Gauge.builder("booking.bulkhead.limit", this, BookingWriteBulkhead::currentLimit)
+                .description("Current concurrency limit for booking writes")
+                .register(meterRegistry);
+        Gauge.builder("booking.bulkhead.in-flight", this, BookingWriteBulkhead::inFlight)
+                .description("Booking writes currently running")
+                .register(meterRegistry);
+        Gauge.builder("booking.bulkhead.queued", this, BookingWriteBulkhead::queued)
+                .description("Booking writes waiting for a permit")
+                .register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("booking.bulkhead.rejected")
+                .description("Booking writes refused by the bulkhead")
+                .tag("reason", "queue-full")
+                .register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("booking.bulkhead.rejected")
+                .description("Booking writes refused by the bulkhead")
+                .tag("reason", "timeout")
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(Supplier<T> write) {
+        acquire();
+        long start = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            return write.get();
+        } catch (RuntimeException ex) {
+            // business failures (404, 409, ...) say nothing about overload
+            overloaded = ex instanceof TransientDataAccessException || ex instanceof CannotCreateTransactionException;
+            throw ex;
+        } finally {
+            release(overloaded || System.nanoTime() - start > targetLatencyNanos);
+        }
+    }
+
+    public void execute(Runnable write) {
+        execute(() -> {
+            write.run();
+            return null;
+        });
+    }
+
+    public double currentLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long rejected() {
+        return (long) (rejectedQueueFull.count() + rejectedTimeout.count());
+    }
+
+    private void acquire() {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return;
+            }
+            if (queued >= maxQueued) {
+                rejectedQueueFull.increment();
+                throw new OverloadedException();
+            }
+
+            queued++;
+            try {
+                long remaining = queueTimeoutNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejectedTimeout.increment();
+                        throw new OverloadedException();
+                    }
+                    remaining = permitReleased.awaitNanos(remaining);
+                }
+                inFlight++;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new OverloadedException();
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(boolean slow) {
+        lock.lock();
+        try {
+            // only grow while the limit is actually in use, or it drifts to max-limit when idle
+            boolean busy = inFlight >= limit / 2;
+            inFlight--;
+            if (slow) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (busy) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class OverloadedException extends ResponseStatusException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        OverloadedException() {
+            super(HttpStatus.SERVICE_UNAVAILABLE, "Too many booking requests in progress, please retry");
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "1");
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package dev.temnikov.qa_test.service;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+/**
+ * Concurrent map whose entries expire a fixed time after they were written, holding at most
+ * {@code maxEntries} of them.
+ * <p>
+ * Every write appends the new entry to a queue. All entries live equally long, so the queue is in
+ * expiry order and both expiry and overflow eviction pop from its head. Overwritten or removed
+ * entries stay queued until they reach the head and are then skipped, so eviction only ever drops
+ * the entry that is actually current for a key. Owners call {@link #evictExpired()} periodically;
+ * expired entries are never returned in between.
+ */
+public final class BoundedTtlCache<K, V> {
+
+    private record Entry<K, V>(K key, V value, long expiresAtMillis) {
+
+        boolean isExpired(long nowMillis) {
+            return nowMillis >= expiresAtMillis;
+        }
+    }
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<K, V>> writeOrder = new ConcurrentLinkedQueue<>();
+
+    public BoundedTtlCache(Duration ttl, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Value for the key, or null if there is none or it has expired.
+     */
+    public V get(K key) {
+        Entry<K, V> entry = entries.get(key);
+        return entry == null || entry.isExpired(System.currentTimeMillis()) ? null : entry.value();
+    }
+
+    /**
+     * Stores the value with a fresh TTL, replacing any previous one.
+     */
+    public void put(K key, V value) {
+        Entry<K, V> entry = new Entry<>(key, value, System.currentTimeMillis() + ttlMillis);
+        entries.put(key, entry);
+        added(entry);
+    }
+
+    /**
+     * Stores the value unless the key already has one that has not expired.
+     *
+     * @return the value already present, or null if the given one was stored
+     */
+    public V putIfAbsent(K key, V value) {
+        long now = System.currentTimeMillis();
+        Entry<K, V> created = new Entry<>(key, value, now + ttlMillis);
+        Entry<K, V> entry = entries.compute(key, (k, existing) ->
+                existing == null || existing.isExpired(now) ? created : existing);
+        if (entry != created) {
+            return entry.value();
+        }
+        added(created);
+        return null;
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes the key only while it still maps to this very value.
+     */
+    public void remove(K key, V value) {
+        entries.computeIfPresent(key, (k, existing) -> existing.value() == value ? null : existing);
+    }
+
+    /**
+     * Removes every entry whose value matches; walks the whole map, so meant for rare invalidations.
+     */
+    public void removeIf(Predicate<? super V> filter) {
+        entries.values().removeIf(entry -> filter.test(entry.value()));
+    }
+
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        for (Entry<K, V> head = writeOrder.peek(); head != null && head.isExpired(now); head = writeOrder.peek()) {
+            if (writeOrder.remove(head)) {
+                entries.remove(head.key(), head);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void added(Entry<K, V> entry) {
+        writeOrder.offer(entry);
+        while (entries.size() > maxEntries) {
+            Entry<K, V> oldest = writeOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            entries.remove(oldest.key(), oldest);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.api.dto.ResponseChangesDto;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reads one delta-sync response: rows and tombstones with since < changeVersion <= upTo.
+ * Tokens are validated beforehand by {@link ChangeVersions#readUpTo(Long)}.
+ * <p>
+ * A response holds at most {@link #MAX_ROWS} rows, except that rows sharing a change version
+ * (written by one transaction) are never split, so the returned token is always a whole version.
+ */
+final class ChangeFeed {
+
+    static final int MAX_ROWS = 500;
+
+    private ChangeFeed() {
+    }
+
+    static <E, D> ResponseChangesDto<D> read(Long since,
+                                             long upTo,
+                                             BiFunction<Long, Limit, List<E>> changedSince,
+                                             LongFunction<List<E>> changedAt,
+                                             ToLongFunction<E> versionOf,
+                                             BiFunction<Long, Long, List<Long>> deletedBetween,
+                                             Function<E, D> mapper) {
+        // no token: full sync, including rows written before change versions existed (version 0)
+        long from = since != null ? since : -1;
+        if (from > upTo) {
+            // issued by a node whose watermark was slightly ahead; nothing is readable past it yet
+            return new ResponseChangesDto<>(List.of(), List.of(), from, false);
+        }
+
+        List<E> rows = changedSince.apply(from, Limit.of(MAX_ROWS + 1));
+        long next = upTo;
+        boolean hasMore = rows.size() > MAX_ROWS;
+        if (hasMore) {
+            long lastVersion = versionOf.applyAsLong(rows.get(MAX_ROWS - 1));
+            List<E> complete = new ArrayList<>();
+            for (E row : rows) {
+                if (versionOf.applyAsLong(row) < lastVersion) {
+                    complete.add(row);
+                }
+            }
+            complete.addAll(changedAt.apply(lastVersion));
+            rows = complete;
+            next = lastVersion;
+        }
+
+        return new ResponseChangesDto<>(
+                rows.stream().map(mapper).toList(),
+                deletedBetween.apply(from, next),
+                next,
+                hasMore
+        );
+    }
+}
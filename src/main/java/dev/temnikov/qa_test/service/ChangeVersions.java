@@ -0,0 +1,231 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.entity.ChangeVersionMark;
+import dev.temnikov.qa_test.entity.Tombstone;
+import dev.temnikov.qa_test.repository.BookingRepository;
+import dev.temnikov.qa_test.repository.ChangeVersionMarkRepository;
+import dev.temnikov.qa_test.repository.SessionRepository;
+import dev.temnikov.qa_test.repository.TombstoneRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Source of the change versions stamped on sessions, bookings and tombstones for delta sync.
+ * <p>
+ * Every transaction that writes gets one version from the shared {@code change_versions_seq}
+ * sequence, so versions are unique across nodes. Versions may commit out of order, so readers only
+ * look up to {@link #committedWatermark()}: every {@code mark-interval-millis} each node publishes
+ * the highest version below the oldest one it still has open, and readers take the lowest of
+ * those. A long write transaction therefore holds the feed back instead of being rolled back.
+ * A node that has not marked within {@code node-timeout-millis} is treated as gone and no longer
+ * holds the watermark; node clocks are assumed to agree to well within that timeout.
+ * <p>
+ * Tombstones are kept for {@code tombstone-retention-days}; tokens older than that get 410.
+ */
+@Slf4j
+@Component
+public class ChangeVersions {
+
+    static final String SEQUENCE = "change_versions_seq";
+
+    private final SessionRepository sessionRepository;
+    private final BookingRepository bookingRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final ChangeVersionMarkRepository markRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+    private final Duration nodeTimeout;
+    private final Duration tombstoneRetention;
+
+    private final Object resourceKey = new Object();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final NavigableSet<Long> openVersions = new ConcurrentSkipListSet<>();
+    /** Allocations share the lock; {@link #mark()} takes it exclusively so no version is drawn but not yet open. */
+    private final ReadWriteLock allocationLock = new ReentrantReadWriteLock();
+
+    public ChangeVersions(SessionRepository sessionRepository,
+                          BookingRepository bookingRepository,
+                          TombstoneRepository tombstoneRepository,
+                          ChangeVersionMarkRepository markRepository,
+                          JdbcTemplate jdbcTemplate,
+                          EntityManagerFactory entityManagerFactory,
+                          @Value("${changes.node-timeout-millis}") long nodeTimeoutMillis,
+                          @Value("${changes.tombstone-retention-days}") long tombstoneRetentionDays) {
+        this.sessionRepository = sessionRepository;
+        this.bookingRepository = bookingRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.markRepository = markRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+        this.nodeTimeout = Duration.ofMillis(nodeTimeoutMillis);
+        this.tombstoneRetention = Duration.ofDays(tombstoneRetentionDays);
+    }
+
+    /**
+     * Creates the sequence and moves it past versions stored by earlier releases, which counted in memory.
+     */
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute("create sequence if not exists " + SEQUENCE);
+        long maxStored = Math.max(
+                sessionRepository.findMaxChangeVersion(),
+                Math.max(bookingRepository.findMaxChangeVersion(), tombstoneRepository.findMaxChangeVersion())
+        );
+        if (nextFromSequence() <= maxStored) {
+            jdbcTemplate.execute("alter sequence " + SEQUENCE + " restart with " + (maxStored + 1));
+            log.info("Sequence {} restarted with {}", SEQUENCE, maxStored + 1);
+        }
+    }
+
+    /**
+     * Version of the current transaction, allocated on first use.
+     */
+    public long current() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Change versions are only assigned inside a transaction");
+        }
+        Long bound = (Long) TransactionSynchronizationManager.getResource(resourceKey);
+        if (bound != null) {
+            return bound;
+        }
+
+        long version;
+        allocationLock.readLock().lock();
+        try {
+            version = nextFromSequence();
+            openVersions.add(version);
+        } finally {
+            allocationLock.readLock().unlock();
+        }
+        TransactionSynchronizationManager.bindResource(resourceKey, version);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                openVersions.remove(version);
+                TransactionSynchronizationManager.unbindResourceIfPossible(resourceKey);
+            }
+        });
+        return version;
+    }
+
+    /**
+     * Leaves a tombstone for a deleted row, versioned with the current transaction.
+     */
+    public void recordDeletion(Tombstone.EntityType entityType, Long entityId) {
+        Tombstone tombstone = new Tombstone();
+        tombstone.setEntityType(entityType);
+        tombstone.setEntityId(entityId);
+        tombstone.setChangeVersion(current());
+        tombstone.setDeletedAt(LocalDateTime.now());
+        tombstoneRepository.save(tombstone);
+    }
+
+    /**
+     * Highest version for which every transaction with that or a smaller version has finished.
+     */
+    public long committedWatermark() {
+        Long lowest = markRepository.findLowestSafeVersion(LocalDateTime.now().minus(nodeTimeout));
+        return lowest == null ? 0 : lowest;
+    }
+
+    /**
+     * Watermark for a delta-sync read from the given token.
+     *
+     * @throws ResponseStatusException 410 if the token was never issued or its tombstones have been pruned
+     */
+    public long readUpTo(Long since) {
+        long upTo = committedWatermark();
+        if (since == null) {
+            return upTo;
+        }
+        if (since < prunedUpTo()) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Sync token has expired, start over without since");
+        }
+        // the watermark can drop back when a node with an old open version rejoins; only tokens beyond every mark are unknown
+        if (since > upTo && since > markRepository.findMaxSafeVersion()) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Unknown sync token, start over without since");
+        }
+        return upTo;
+    }
+
+    /**
+     * Tombstones up to this version have been pruned; tokens below it cannot be served.
+     */
+    private long prunedUpTo() {
+        return tombstoneRepository.findMaxChangeVersion(Tombstone.EntityType.HORIZON);
+    }
+
+    /**
+     * Publishes this node's safe version: one below its oldest open version, or the sequence
+     * position if nothing is open.
+     */
+    @Scheduled(fixedDelayString = "${changes.mark-interval-millis}")
+    @Transactional
+    public void mark() {
+        long safe;
+        allocationLock.writeLock().lock();
+        try {
+            long next = nextFromSequence();
+            Long oldestOpen = openVersions.isEmpty() ? null : openVersions.first();
+            safe = (oldestOpen == null ? next : Math.min(next, oldestOpen)) - 1;
+        } finally {
+            allocationLock.writeLock().unlock();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        ChangeVersionMark mark = new ChangeVersionMark();
+        mark.setNodeId(nodeId);
+        mark.setSafeVersion(safe);
+        mark.setObservedAt(now);
+        markRepository.save(mark);
+        markRepository.deleteObservedBefore(now.minus(nodeTimeout.multipliedBy(10)));
+    }
+
+    @Scheduled(fixedDelayString = "${changes.tombstone-sweep-interval-millis}")
+    @Transactional
+    public void pruneTombstones() {
+        Long upTo = tombstoneRepository.findMaxChangeVersionDeletedBefore(LocalDateTime.now().minus(tombstoneRetention));
+        if (upTo == null || upTo <= prunedUpTo()) {
+            return;
+        }
+        int pruned = tombstoneRepository.deleteUpTo(upTo);
+
+        Tombstone horizon = new Tombstone();
+        horizon.setEntityType(Tombstone.EntityType.HORIZON);
+        horizon.setEntityId(0L);
+        horizon.setChangeVersion(upTo);
+        horizon.setDeletedAt(LocalDateTime.now());
+        tombstoneRepository.save(horizon);
+        log.info("Pruned {} tombstones up to change version {}", pruned, upTo);
+    }
+
+    private long nextFromSequence() {
+        Long next = jdbcTemplate.queryForObject(dialect.getSequenceSupport().getSequenceNextValString(SEQUENCE), Long.class);
+        if (next == null) {
+            throw new IllegalStateException("Sequence " + SEQUENCE + " returned no value");
+        }
+        return next;
+    }
+}
@@ -0,0 +1,38 @@
+package dev.temnikov.qa_test.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Row counts reused across paginated requests for {@code withTotal=cached}.
+ * A count is reused for one TTL; in between, totals may lag behind recent writes. Requests arriving
+ * while an expired count is recomputed each run the query once.
+ */
+@Component
+public class CountCache {
+
+    private final long ttlNanos;
+    private final Map<String, Entry> counts = new ConcurrentHashMap<>();
+
+    private record Entry(long count, long expiresAtNanos) {
+    }
+
+    public CountCache(@Value("${pagination.count-cache.ttl-seconds}") long ttlSeconds) {
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    }
+
+    public long get(String key, LongSupplier counter) {
+        Entry entry = counts.get(key);
+        if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+            return entry.count();
+        }
+        // count outside the map: compute() would hold the bin lock, and block other keys, for the whole query
+        long count = counter.getAsLong();
+        counts.put(key, new Entry(count, System.nanoTime() + ttlNanos));
+        return count;
+    }
+}
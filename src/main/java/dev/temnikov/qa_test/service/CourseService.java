@@ -1,20 +1,29 @@
 package dev.temnikov.qa_test.service;
 
+import dev.temnikov.qa_test.api.dto.CursorPage;
 import dev.temnikov.qa_test.api.dto.PageResponse;
 import dev.temnikov.qa_test.api.dto.RequestCourseDto;
 import dev.temnikov.qa_test.api.dto.ResponseCourseDto;
 import dev.temnikov.qa_test.api.mapper.CourseMapper;
+import dev.temnikov.qa_test.api.pagination.KeysetPages;
+import dev.temnikov.qa_test.api.pagination.PageCursor;
+import dev.temnikov.qa_test.api.pagination.PageResponses;
+import dev.temnikov.qa_test.api.pagination.TotalMode;
 import dev.temnikov.qa_test.entity.Course;
+import dev.temnikov.qa_test.entity.Tombstone;
 import dev.temnikov.qa_test.entity.User;
 import dev.temnikov.qa_test.repository.CourseRepository;
 import dev.temnikov.qa_test.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
+
 import static dev.temnikov.qa_test.entity.UserRole.TRAINER;
 
 @Service
@@ -23,21 +32,37 @@ public class CourseService {
 
     private final CourseRepository courseRepository;
     private final UserService userService;
+    private final CountCache countCache;
+    private final ChangeVersions changeVersions;
 
-    public PageResponse<ResponseCourseDto> getAll(Pageable pageable) {
-        Page<Course> page = courseRepository.findAll(pageable);
+    public PageResponse<ResponseCourseDto> getAll(Pageable pageable, TotalMode totals) {
+        return switch (totals) {
+            case EXACT -> PageResponses.of(courseRepository.findAll(pageable), CourseMapper::toDto);
+            case NONE -> PageResponses.of(courseRepository.findAllBy(pageable), null, CourseMapper::toDto);
+            case CACHED -> PageResponses.of(
+                    courseRepository.findAllBy(pageable),
+                    countCache.get("courses", courseRepository::count),
+                    CourseMapper::toDto
+            );
+        };
+    }
 
-        return new PageResponse<>(
-                page.getContent()
-                        .stream()
-                        .map(CourseMapper::toDto)
-                        .toList(),
-                page.getNumber(),
-                page.getSize(),
-                page.getTotalElements(),
-                page.getTotalPages(),
-                page.isLast()
-        );
+    /**
+     * Keyset mode of {@link #getAll(Pageable, TotalMode)}: ordered by id, no offset and no count query.
+     */
+    public CursorPage<ResponseCourseDto> getAllByCursor(String cursor, int size) {
+        PageCursor position = PageCursor.decode(cursor, "id");
+        Limit limit = Limit.of(PageCursor.validateSize(size) + 1);
+        List<Course> rows;
+        if (position == null) {
+            rows = courseRepository.findByIdGreaterThanOrderByIdAsc(0, limit);
+        } else if (position.backward()) {
+            rows = courseRepository.findByIdLessThanOrderByIdDesc(position.id(), limit);
+        } else {
+            rows = courseRepository.findByIdGreaterThanOrderByIdAsc(position.id(), limit);
+        }
+        return KeysetPages.toPage(rows, size, position, "id",
+                row -> String.valueOf(row.getId()), Course::getId, CourseMapper::toDto);
     }
 
     public ResponseCourseDto getById(Long id) {
@@ -76,11 +101,14 @@ public class CourseService {
         return CourseMapper.toDto(saved);
     }
 
+    @Transactional
     public void delete(Long id) {
         if (!courseRepository.existsById(id)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found");
         }
         courseRepository.deleteById(id);
+        // moves the course ETag, which only sees surviving rows otherwise
+        changeVersions.recordDeletion(Tombstone.EntityType.COURSE, id);
     }
 
     public Course getEntityById(Long id) {
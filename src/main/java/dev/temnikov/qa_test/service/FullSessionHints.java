@@ -0,0 +1,59 @@
+package dev.temnikov.qa_test.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local "session is full" hints for booking creation.
+ * <p>
+ * A session that was found full is remembered for {@code booking.full-session-hint.ttl-millis}, and
+ * plain booking requests for it are rejected before a transaction is opened. This is not a seat
+ * counter: it can only reject, and seats are still taken by the conditional update on
+ * {@code session.booked_count}, which keeps admission exact across nodes. Seats released on this
+ * node clear the hint after commit; a seat freed on another node becomes bookable here at most one
+ * TTL later.
+ */
+@Component
+public class FullSessionHints {
+
+    private final long fullTtlNanos;
+    private final ConcurrentHashMap<Long, Long> fullUntilNanos = new ConcurrentHashMap<>();
+
+    public FullSessionHints(@Value("${booking.full-session-hint.ttl-millis}") long fullTtlMillis) {
+        this.fullTtlNanos = fullTtlMillis * 1_000_000L;
+    }
+
+    /**
+     * @return true when the session was found full less than one TTL ago
+     */
+    public boolean isKnownFull(Long sessionId) {
+        Long until = fullUntilNanos.get(sessionId);
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    public void markFull(Long sessionId) {
+        if (fullTtlNanos > 0) {
+            fullUntilNanos.put(sessionId, System.nanoTime() + fullTtlNanos);
+        }
+    }
+
+    /**
+     * Seats were released or capacity was raised; call after commit.
+     */
+    public void markAvailable(Long sessionId) {
+        fullUntilNanos.remove(sessionId);
+    }
+
+    public void clear() {
+        fullUntilNanos.clear();
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.nanoTime();
+        fullUntilNanos.values().removeIf(until -> until - now <= 0);
+    }
+}
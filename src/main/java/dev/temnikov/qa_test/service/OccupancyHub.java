@@ -0,0 +1,258 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.api.dto.SessionOccupancyDto;
+import dev.temnikov.qa_test.repository.SessionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out of session occupancy to Server-Sent Events subscribers.
+ * <p>
+ * Seat changes only mark the session dirty after commit, so booking writes never wait for
+ * subscribers. A scheduled flush reads all dirty sessions with one query and hands each subscriber
+ * the latest state per session. Subscribers are drained by a small sender pool; a slow one keeps
+ * at most one pending event per session, so bursts collapse into the newest value instead of
+ * queuing up. Connections are async, no thread is held per subscriber.
+ * <p>
+ * A send blocks its sender thread while the client does not read. Subscribers whose send has been
+ * in progress for longer than {@code send-timeout-millis} are dropped: they get no further events,
+ * and the blocked thread is freed once the container's write timeout fails the send.
+ */
+@Slf4j
+@Component
+public class OccupancyHub {
+
+    private static final String EVENT_NAME = "occupancy";
+
+    private final SessionRepository sessionRepository;
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+    private final long sendTimeoutNanos;
+    private final ExecutorService sender;
+
+    private final Set<Long> dirtySessionIds = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // reserved before a subscriber is added, so concurrent subscribes cannot exceed the cap
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    public OccupancyHub(
+            SessionRepository sessionRepository,
+            @Value("${occupancy.stream.timeout-millis}") long timeoutMillis,
+            @Value("${occupancy.stream.max-subscribers}") int maxSubscribers,
+            @Value("${occupancy.stream.sender-threads}") int senderThreads,
+            @Value("${occupancy.stream.send-timeout-millis}") long sendTimeoutMillis
+    ) {
+        this.sessionRepository = sessionRepository;
+        this.timeoutMillis = timeoutMillis;
+        this.maxSubscribers = maxSubscribers;
+        this.sendTimeoutNanos = sendTimeoutMillis * 1_000_000L;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(
+                senderThreads,
+                runnable -> new Thread(runnable, "occupancy-sender-" + threadNumber.incrementAndGet())
+        );
+    }
+
+    /**
+     * @param courseId only sessions of this course; null for all sessions.
+     *                 With a course the stream starts with the occupancy of its upcoming sessions.
+     */
+    public SseEmitter subscribe(Long courseId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many occupancy subscribers, please retry");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, courseId);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(ex -> unsubscribe(subscriber));
+        subscribers.add(subscriber);
+
+        try {
+            if (courseId != null) {
+                sessionRepository.findUpcomingOccupancies(courseId, LocalDateTime.now())
+                        .forEach(row -> subscriber.offer(toDto(row)));
+            }
+        } catch (RuntimeException ex) {
+            unsubscribe(subscriber);
+            throw ex;
+        }
+        return emitter;
+    }
+
+    /**
+     * Releases the subscriber's slot; safe to call more than once.
+     */
+    private boolean unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records that the seat usage of a session changed; published once the transaction commits.
+     */
+    public void markChanged(Long sessionId) {
+        TransactionCallbacks.afterCommit(() -> dirtySessionIds.add(sessionId));
+    }
+
+    @Scheduled(fixedDelayString = "${occupancy.stream.flush-interval-millis}")
+    public void flush() {
+        if (dirtySessionIds.isEmpty()) {
+            return;
+        }
+        List<Long> sessionIds = new ArrayList<>();
+        for (Long id : dirtySessionIds) {
+            dirtySessionIds.remove(id);
+            sessionIds.add(id);
+        }
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        for (SessionRepository.SessionOccupancy row : sessionRepository.findOccupancies(sessionIds)) {
+            SessionOccupancyDto event = toDto(row);
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.courseId == null || subscriber.courseId.equals(event.courseId())) {
+                    subscriber.offer(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Comment lines keep proxies from closing idle streams and reveal dead connections.
+     */
+    @Scheduled(fixedRateString = "${occupancy.stream.heartbeat-interval-millis}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::offerHeartbeat);
+    }
+
+    @Scheduled(fixedDelayString = "${occupancy.stream.send-timeout-millis}")
+    public void dropSlowSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.sendingSinceNanos;
+            // completing the emitter here would wait for the blocked send; the sender thread does it
+            if (since != 0 && now - since > sendTimeoutNanos && unsubscribe(subscriber)) {
+                log.debug("Dropping occupancy subscriber that has not read for {} ms", (now - since) / 1_000_000);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sender.shutdown();
+        sender.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static SessionOccupancyDto toDto(SessionRepository.SessionOccupancy row) {
+        return new SessionOccupancyDto(
+                row.getId(),
+                row.getCourseId(),
+                row.getCapacity(),
+                row.getBookedCount(),
+                Math.max(row.getCapacity() - row.getBookedCount(), 0)
+        );
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long courseId;
+
+        // guarded by this
+        private final Map<Long, SessionOccupancyDto> pending = new LinkedHashMap<>();
+        private boolean heartbeatPending;
+        private boolean draining;
+        // System.nanoTime() when the current send started, 0 while not sending
+        private volatile long sendingSinceNanos;
+
+        private Subscriber(SseEmitter emitter, Long courseId) {
+            this.emitter = emitter;
+            this.courseId = courseId;
+        }
+
+        void offer(SessionOccupancyDto event) {
+            synchronized (this) {
+                pending.put(event.sessionId(), event);
+                scheduleDrain();
+            }
+        }
+
+        void offerHeartbeat() {
+            synchronized (this) {
+                heartbeatPending = true;
+                scheduleDrain();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (!draining) {
+                draining = true;
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                List<SessionOccupancyDto> events;
+                boolean heartbeat;
+                synchronized (this) {
+                    if (pending.isEmpty() && !heartbeatPending) {
+                        draining = false;
+                        return;
+                    }
+                    events = new ArrayList<>(pending.values());
+                    pending.clear();
+                    heartbeat = heartbeatPending;
+                    heartbeatPending = false;
+                }
+                try {
+                    sendingSinceNanos = System.nanoTime();
+                    for (SessionOccupancyDto event : events) {
+                        emitter.send(SseEmitter.event().name(EVENT_NAME).data(event));
+                    }
+                    if (heartbeat) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    }
+                } catch (IOException | IllegalStateException ex) {
+                    log.debug("Dropping occupancy subscriber: {}", ex.getMessage());
+                    unsubscribe(this);
+                    emitter.completeWithError(ex);
+                    return;
+                } finally {
+                    sendingSinceNanos = 0;
+                }
+                if (!subscribers.contains(this)) {
+                    // dropped as too slow while sending
+                    emitter.complete();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.entity.Tombstone;
+import dev.temnikov.qa_test.repository.CourseRepository;
+import dev.temnikov.qa_test.repository.SessionRepository;
+import dev.temnikov.qa_test.repository.TombstoneRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Strong ETags for resources that clients poll.
+ * <p>
+ * A tag is the highest change version of the resource: writes stamp their rows, deletes leave a
+ * tombstone, and pruned tombstones are covered by the {@link Tombstone.EntityType#HORIZON} marker,
+ * so the tag only ever grows. Every value is an index probe on {@code change_version}, and every
+ * node computes the same tag for the same committed state.
+ * <p>
+ * Transactions may commit out of order, so a write could land below a version that is already
+ * visible. The tag is therefore capped at {@link ChangeVersions#committedWatermark()}: every write
+ * moves the tag at the latest once the watermark passes it, i.e. a 304 may be served for about
+ * {@code changes.mark-interval-millis} after a write, as with the change feed.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResourceVersions {
+
+    public enum Resource {
+        SESSIONS(Tombstone.EntityType.SESSION),
+        COURSES(Tombstone.EntityType.COURSE);
+
+        private final Tombstone.EntityType tombstoneType;
+
+        Resource(Tombstone.EntityType tombstoneType) {
+            this.tombstoneType = tombstoneType;
+        }
+    }
+
+    private final SessionRepository sessionRepository;
+    private final CourseRepository courseRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final ChangeVersions changeVersions;
+
+    public String etag(Resource resource) {
+        long rows = switch (resource) {
+            case SESSIONS -> sessionRepository.findMaxChangeVersion();
+            case COURSES -> courseRepository.findMaxChangeVersion();
+        };
+        long written = Math.max(rows, Math.max(
+                tombstoneRepository.findMaxChangeVersion(resource.tombstoneType),
+                tombstoneRepository.findMaxChangeVersion(Tombstone.EntityType.HORIZON)
+        ));
+        long version = Math.min(written, changeVersions.committedWatermark());
+        return "\"" + resource.name().toLowerCase() + "-" + Long.toString(version, 36) + "\"";
+    }
+}
@@ -1,51 +1,154 @@
 package dev.temnikov.qa_test.service;
 
+import dev.temnikov.qa_test.api.dto.CursorPage;
 import dev.temnikov.qa_test.api.dto.PageResponse;
 import dev.temnikov.qa_test.api.dto.RequestSessionDto;
+import dev.temnikov.qa_test.api.dto.RequestSessionSeriesDto;
+import dev.temnikov.qa_test.api.dto.ResponseChangesDto;
 import dev.temnikov.qa_test.api.dto.ResponseSessionDto;
 import dev.temnikov.qa_test.api.mapper.SessionMapper;
+import dev.temnikov.qa_test.api.pagination.KeysetPages;
+import dev.temnikov.qa_test.api.pagination.PageCursor;
+import dev.temnikov.qa_test.api.pagination.PageResponses;
+import dev.temnikov.qa_test.api.pagination.TotalMode;
 import dev.temnikov.qa_test.entity.BookingStatus;
 import dev.temnikov.qa_test.entity.Course;
 import dev.temnikov.qa_test.entity.Session;
-import dev.temnikov.qa_test.repository.BookingRepository;
+import dev.temnikov.qa_test.entity.Tombstone;
 import dev.temnikov.qa_test.repository.SessionRepository;
+import dev.temnikov.qa_test.repository.TombstoneRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class SessionService {
 
+    public static final int MAX_SERIES_OCCURRENCES = 366;
+
     private final SessionRepository sessionRepository;
-    private final BookingRepository bookingRepository;
     private final CourseService courseService;
+    private final WaitlistService waitlistService;
+    private final CountCache countCache;
+    private final ChangeVersions changeVersions;
+    private final TombstoneRepository tombstoneRepository;
+    private final OccupancyHub occupancyHub;
+    private final FullSessionHints fullSessionHints;
+
+    public PageResponse<ResponseSessionDto> getAll(Pageable pageable, TotalMode totals) {
+        return switch (totals) {
+            case EXACT -> PageResponses.of(sessionRepository.findAll(pageable), SessionMapper::toDto);
+            case NONE -> PageResponses.of(sessionRepository.findAllBy(pageable), null, SessionMapper::toDto);
+            case CACHED -> PageResponses.of(
+                    sessionRepository.findAllBy(pageable),
+                    countCache.get("sessions", sessionRepository::count),
+                    SessionMapper::toDto
+            );
+        };
+    }
 
-    public PageResponse<ResponseSessionDto> getAll(Pageable pageable) {
-        Page<Session> page = sessionRepository.findAll(pageable);
+    /**
+     * Keyset mode of {@link #getAll(Pageable, TotalMode)}, ordered by id or by (startTime, id);
+     * no offset and no count query.
+     */
+    public CursorPage<ResponseSessionDto> getAllByCursor(String cursor, int size, String sort) {
+        Limit limit = Limit.of(PageCursor.validateSize(size) + 1);
+        if ("id".equals(sort)) {
+            PageCursor position = PageCursor.decode(cursor, "id");
+            List<Session> rows;
+            if (position == null) {
+                rows = sessionRepository.findByIdGreaterThanOrderByIdAsc(0, limit);
+            } else if (position.backward()) {
+                rows = sessionRepository.findByIdLessThanOrderByIdDesc(position.id(), limit);
+            } else {
+                rows = sessionRepository.findByIdGreaterThanOrderByIdAsc(position.id(), limit);
+            }
+            return KeysetPages.toPage(rows, size, position, "id",
+                    row -> String.valueOf(row.getId()), Session::getId, SessionMapper::toDto);
+        }
+        if ("startTime".equals(sort)) {
+            PageCursor position = PageCursor.decode(cursor, "startTime");
+            List<Session> rows;
+            if (position == null) {
+                rows = sessionRepository.findAllByOrderByStartTimeAscIdAsc(limit);
+            } else {
+                LocalDateTime startTime = parseCursorTime(position.keyValue());
+                rows = position.backward()
+                        ? sessionRepository.findPageBeforeStartTime(startTime, position.id(), limit)
+                        : sessionRepository.findPageAfterStartTime(startTime, position.id(), limit);
+            }
+            return KeysetPages.toPage(rows, size, position, "startTime",
+                    row -> row.getStartTime().toString(), Session::getId, SessionMapper::toDto);
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be id or startTime");
+    }
+
+    private LocalDateTime parseCursorTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
 
-        Map<Long, Integer> currentBookingsBySessionId = loadCurrentBookings(page.getContent());
+    /**
+     * Sessions starting in [from, to); all filtering, including free seats, happens in SQL.
+     */
+    public PageResponse<ResponseSessionDto> search(LocalDateTime from,
+                                                   LocalDateTime to,
+                                                   Long courseId,
+                                                   Long trainerId,
+                                                   boolean onlyAvailable,
+                                                   Pageable pageable) {
+        if (from == null || to == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from and to are required");
+        }
+        if (!to.isAfter(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to must be after from");
+        }
+        return PageResponses.of(
+                sessionRepository.search(from, to, courseId, trainerId, onlyAvailable, pageable),
+                SessionMapper::toDto
+        );
+    }
 
-        return new PageResponse<>(
-                page.getContent().stream()
-                        .map(s -> SessionMapper.toDto(s, currentBookingsBySessionId.getOrDefault(s.getId(), 0)))
-                        .toList(),
-                page.getNumber(),
-                page.getSize(),
-                page.getTotalElements(),
-                page.getTotalPages(),
-                page.isLast()
+    /**
+     * Delta sync: sessions written and deleted after the given token, seat counts included.
+     */
+    @Transactional(readOnly = true)
+    public ResponseChangesDto<ResponseSessionDto> getChanges(Long since) {
+        long upTo = changeVersions.readUpTo(since);
+        return ChangeFeed.read(
+                since,
+                upTo,
+                (from, limit) -> sessionRepository.findChanged(from, upTo, limit),
+                sessionRepository::findByChangeVersionOrderByIdAsc,
+                Session::getChangeVersion,
+                (from, to) -> tombstoneRepository.findDeletedIds(Tombstone.EntityType.SESSION, from, to),
+                SessionMapper::toDto
         );
     }
 
@@ -53,39 +156,62 @@ public class SessionService {
         Session session = sessionRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Session not found"));
 
-        int currentBookings = (int) bookingRepository.countBySessionIdAndStatusIn(
-                session.getId(),
-                List.of(BookingStatus.PENDING, BookingStatus.CONFIRMED)
-        );
+        return SessionMapper.toDto(session);
+    }
 
-        return SessionMapper.toDto(session, currentBookings);
+    /**
+     * Reserves one seat with a single conditional update.
+     *
+     * @return false when the session is full
+     */
+    @Transactional
+    public boolean tryReserveSeat(Long sessionId) {
+        return tryReserveSeats(sessionId, 1);
     }
 
-    private Map<Long, Integer> loadCurrentBookings(List<Session> sessions) {
-        if (sessions == null || sessions.isEmpty()) {
-            return Map.of();
+    /**
+     * Reserves several seats at once; either all of them or none.
+     */
+    @Transactional
+    public boolean tryReserveSeats(Long sessionId, int seats) {
+        if (sessionRepository.tryReserveSeats(sessionId, seats, changeVersions.current()) == 1) {
+            occupancyHub.markChanged(sessionId);
+            return true;
         }
+        return false;
+    }
 
-        Set<Long> sessionIds = sessions.stream()
-                .map(Session::getId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+    @Transactional
+    public void forceReserveSeat(Long sessionId) {
+        sessionRepository.forceReserveSeat(sessionId, changeVersions.current());
+        occupancyHub.markChanged(sessionId);
+    }
 
-        if (sessionIds.isEmpty()) {
-            return Map.of();
-        }
+    @Transactional
+    public void releaseSeat(Long sessionId) {
+        releaseSeats(sessionId, 1);
+    }
 
-        List<BookingRepository.SessionBookingCount> counts =
-                bookingRepository.countBySessionIdsAndStatusIn(
-                        sessionIds,
-                        List.of(BookingStatus.PENDING, BookingStatus.CONFIRMED)
-                );
+    @Transactional
+    public void releaseSeats(Long sessionId, int seats) {
+        sessionRepository.releaseSeats(sessionId, seats, changeVersions.current());
+        occupancyHub.markChanged(sessionId);
+        TransactionCallbacks.afterCommit(() -> fullSessionHints.markAvailable(sessionId));
+    }
 
-        return counts.stream()
-                .collect(Collectors.toMap(
-                        BookingRepository.SessionBookingCount::getSessionId,
-                        c -> (int) c.getCount()
-                ));
+    /**
+     * Brings bookedCount in line with the bookings table, e.g. for rows created before the column existed.
+     * Run once by an admin after migrating; only sessions whose count differs are written.
+     *
+     * @return number of corrected sessions
+     */
+    @Transactional
+    public int recalculateBookedCounts() {
+        int corrected = sessionRepository.recalculateBookedCounts(BookingStatus.ACTIVE, changeVersions.current());
+        if (corrected > 0) {
+            TransactionCallbacks.afterCommit(fullSessionHints::clear);
+        }
+        return corrected;
     }
 
     public ResponseSessionDto create(RequestSessionDto dto) {
@@ -116,9 +242,97 @@ public class SessionService {
         session.setCapacity(capacity);
 
         Session saved = sessionRepository.save(session);
+        occupancyHub.markChanged(saved.getId());
         return SessionMapper.toDto(saved);
     }
 
+    /**
+     * Creates every occurrence of a recurrence rule in one transaction.
+     * Occurrences are checked against existing sessions of the course with a single range query,
+     * and all conflicting slots are reported together.
+     */
+    @Transactional
+    public List<ResponseSessionDto> createSeries(RequestSessionSeriesDto dto) {
+        if (dto.courseId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "courseId is required");
+        }
+        if (dto.startTime() == null || dto.endTime() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "startTime and endTime are required");
+        }
+        if (dto.frequency() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "frequency is required");
+        }
+        if ((dto.until() == null) == (dto.count() == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Exactly one of until and count is required");
+        }
+        int interval = dto.interval() != null ? dto.interval() : 1;
+        if (interval <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "interval must be greater than 0");
+        }
+        if (dto.count() != null && (dto.count() <= 0 || dto.count() > MAX_SERIES_OCCURRENCES)) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "count must be between 1 and " + MAX_SERIES_OCCURRENCES
+            );
+        }
+
+        Course course = courseService.getEntityById(dto.courseId());
+
+        LocalDateTime start = normalizeToMinutes(dto.startTime());
+        LocalDateTime end = normalizeToMinutes(dto.endTime());
+        validateSessionTimeRange(start, end);
+        validateSessionInFuture(start);
+        int capacity = dto.capacity() != null ? dto.capacity() : Session.DEFAULT_CAPACITY;
+        validateCapacity(capacity);
+
+        List<LocalDateTime> starts = expandSeries(dto, start, interval);
+        if (starts.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Recurrence rule produces no sessions");
+        }
+        Duration duration = Duration.between(start, end);
+
+        NavigableMap<LocalDateTime, LocalDateTime> taken = new TreeMap<>();
+        sessionRepository.findIntervalsInRange(course.getId(), starts.get(0), starts.get(starts.size() - 1).plus(duration))
+                .forEach(existing -> taken.put(existing.getStartTime(), existing.getEndTime()));
+
+        List<LocalDateTime> conflicts = new ArrayList<>();
+        for (LocalDateTime occurrenceStart : starts) {
+            LocalDateTime occurrenceEnd = occurrenceStart.plus(duration);
+            Map.Entry<LocalDateTime, LocalDateTime> before = taken.lowerEntry(occurrenceEnd);
+            if (before != null && before.getValue().isAfter(occurrenceStart)) {
+                conflicts.add(occurrenceStart);
+            } else {
+                taken.put(occurrenceStart, occurrenceEnd);
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new ResponseStatusException(
+                    HttpStatus.CONFLICT,
+                    "Series overlaps existing sessions for this course at: " + conflicts.stream()
+                            .map(LocalDateTime::toString)
+                            .collect(Collectors.joining(", "))
+            );
+        }
+
+        List<Session> sessions = starts.stream()
+                .map(occurrenceStart -> {
+                    Session session = new Session();
+                    session.setCourse(course);
+                    session.setStartTime(occurrenceStart);
+                    session.setEndTime(occurrenceStart.plus(duration));
+                    session.setCapacity(capacity);
+                    return session;
+                })
+                .toList();
+
+        List<Session> saved = sessionRepository.saveAll(sessions);
+        saved.forEach(session -> occupancyHub.markChanged(session.getId()));
+        return saved.stream()
+                .map(SessionMapper::toDto)
+                .toList();
+    }
+
+    @Transactional
     public ResponseSessionDto update(Long id, RequestSessionDto dto) {
         Session existing = sessionRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Session not found"));
@@ -141,20 +355,32 @@ public class SessionService {
         validateNoOverlap(course.getId(), start, end, existing.getId());
         validateCapacity(capacity);
 
+        boolean capacityIncreased = capacity > existing.getCapacity();
         existing.setCapacity(capacity);
         existing.setCourse(course);
         existing.setStartTime(start);
         existing.setEndTime(end);
 
         Session saved = sessionRepository.save(existing);
+        occupancyHub.markChanged(saved.getId());
+        if (capacityIncreased) {
+            TransactionCallbacks.afterCommit(() -> fullSessionHints.markAvailable(id));
+        }
+        if (capacityIncreased && waitlistService.promote(saved.getId()) > 0) {
+            // promotion changed bookedCount through a bulk update, the managed entity does not see it
+            return SessionMapper.toDto(saved, sessionRepository.findBookedCount(saved.getId()));
+        }
         return SessionMapper.toDto(saved);
     }
 
+    @Transactional
     public void delete(Long id) {
         if (!sessionRepository.existsById(id)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Session not found");
         }
         sessionRepository.deleteById(id);
+        changeVersions.recordDeletion(Tombstone.EntityType.SESSION, id);
+        TransactionCallbacks.afterCommit(() -> fullSessionHints.markAvailable(id));
     }
 
     public Session getEntityById(Long id) {
@@ -162,6 +388,65 @@ public class SessionService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Session not found"));
     }
 
+    public Map<Long, Session> getEntitiesByIds(Collection<Long> ids) {
+        return sessionRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Session::getId, Function.identity()));
+    }
+
+    /**
+     * Start times of all occurrences in ascending order, exclusions already removed.
+     */
+    private List<LocalDateTime> expandSeries(RequestSessionSeriesDto dto, LocalDateTime first, int interval) {
+        LocalDate firstDate = first.toLocalDate();
+        Set<LocalDate> exclusions = dto.exclusions() != null ? Set.copyOf(dto.exclusions()) : Set.of();
+
+        List<LocalDate> dates = new ArrayList<>();
+        if (dto.frequency() == RequestSessionSeriesDto.Frequency.DAILY) {
+            for (LocalDate date = firstDate; !seriesComplete(dto, dates, date); date = date.plusDays(interval)) {
+                dates.add(date);
+            }
+        } else {
+            SortedSet<DayOfWeek> days = dto.daysOfWeek() != null && !dto.daysOfWeek().isEmpty()
+                    ? new TreeSet<>(dto.daysOfWeek())
+                    : new TreeSet<>(Set.of(first.getDayOfWeek()));
+            LocalDate weekStart = firstDate.with(DayOfWeek.MONDAY);
+            weeks:
+            for (; ; weekStart = weekStart.plusWeeks(interval)) {
+                for (DayOfWeek day : days) {
+                    LocalDate date = weekStart.with(day);
+                    if (date.isBefore(firstDate)) {
+                        continue;
+                    }
+                    if (seriesComplete(dto, dates, date)) {
+                        break weeks;
+                    }
+                    dates.add(date);
+                }
+            }
+        }
+
+        return dates.stream()
+                .filter(date -> !exclusions.contains(date))
+                .map(date -> date.atTime(first.toLocalTime()))
+                .toList();
+    }
+
+    private boolean seriesComplete(RequestSessionSeriesDto dto, List<LocalDate> dates, LocalDate next) {
+        if (dto.count() != null) {
+            return dates.size() >= dto.count();
+        }
+        if (next.isAfter(dto.until())) {
+            return true;
+        }
+        if (dates.size() >= MAX_SERIES_OCCURRENCES) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "A series may contain at most " + MAX_SERIES_OCCURRENCES + " sessions"
+            );
+        }
+        return false;
+    }
+
     private LocalDateTime normalizeToMinutes(LocalDateTime dateTime) {
         if (dateTime == null) {
             return null;
@@ -202,10 +487,8 @@ public class SessionService {
                                    LocalDateTime end,
                                    Long currentSessionId) {
 
-        List<Session> overlapping = sessionRepository.findOverlappingSessions(courseId, start, end);
-
-        boolean hasConflict = overlapping.stream()
-                .anyMatch(session -> currentSessionId == null || !session.getId().equals(currentSessionId));
+        // served by idx_session_course_start_time
+        boolean hasConflict = sessionRepository.existsOverlappingSession(courseId, start, end, currentSessionId);
 
         if (hasConflict) {
             throw new ResponseStatusException(
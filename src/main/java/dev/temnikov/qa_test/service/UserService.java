@@ -1,23 +1,39 @@
 package dev.temnikov.qa_test.service;
 
+import dev.temnikov.qa_test.api.dto.CursorPage;
 import dev.temnikov.qa_test.api.dto.RequestUserDto;
 import dev.temnikov.qa_test.api.dto.ResponseUserDto;
 import dev.temnikov.qa_test.api.mapper.UserMapper;
+import dev.temnikov.qa_test.api.pagination.KeysetPages;
+import dev.temnikov.qa_test.api.pagination.PageCursor;
+import dev.temnikov.qa_test.api.pagination.PageResponses;
+import dev.temnikov.qa_test.api.pagination.TotalMode;
 import dev.temnikov.qa_test.config.AdminConfig;
 import dev.temnikov.qa_test.entity.User;
 import dev.temnikov.qa_test.entity.UserRole;
 import dev.temnikov.qa_test.repository.UserRepository;
+import dev.temnikov.qa_test.security.BasicCredentialCache;
+import dev.temnikov.qa_test.security.PrincipalCache;
+import dev.temnikov.qa_test.security.RefreshTokenService;
+import dev.temnikov.qa_test.security.TokenRevocations;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import dev.temnikov.qa_test.api.dto.PageResponse;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,22 +41,42 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final AdminConfig adminConfig;
+    private final CountCache countCache;
+    private final PrincipalCache principalCache;
+    private final BasicCredentialCache basicCredentialCache;
+    private final PasswordEncoder passwordEncoder;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocations tokenRevocations;
+
+
+    public PageResponse<ResponseUserDto> getAll(Pageable pageable, TotalMode totals) {
+        return switch (totals) {
+            case EXACT -> PageResponses.of(userRepository.findAll(pageable), UserMapper::toDto);
+            case NONE -> PageResponses.of(userRepository.findAllBy(pageable), null, UserMapper::toDto);
+            case CACHED -> PageResponses.of(
+                    userRepository.findAllBy(pageable),
+                    countCache.get("users", userRepository::count),
+                    UserMapper::toDto
+            );
+        };
+    }
 
-
-    public PageResponse<ResponseUserDto> getAll(Pageable pageable) {
-        Page<User> page = userRepository.findAll(pageable);
-
-        return new PageResponse<>(
-                page.getContent()
-                        .stream()
-                        .map(UserMapper::toDto)
-                        .toList(),
-                page.getNumber(),
-                page.getSize(),
-                page.getTotalElements(),
-                page.getTotalPages(),
-                page.isLast()
-        );
+    /**
+     * Keyset mode of {@link #getAll(Pageable, TotalMode)}: ordered by id, no offset and no count query.
+     */
+    public CursorPage<ResponseUserDto> getAllByCursor(String cursor, int size) {
+        PageCursor position = PageCursor.decode(cursor, "id");
+        Limit limit = Limit.of(PageCursor.validateSize(size) + 1);
+        List<User> rows;
+        if (position == null) {
+            rows = userRepository.findByIdGreaterThanOrderByIdAsc(0, limit);
+        } else if (position.backward()) {
+            rows = userRepository.findByIdLessThanOrderByIdDesc(position.id(), limit);
+        } else {
+            rows = userRepository.findByIdGreaterThanOrderByIdAsc(position.id(), limit);
+        }
+        return KeysetPages.toPage(rows, size, position, "id",
+                row -> String.valueOf(row.getId()), User::getId, UserMapper::toDto);
     }
 
 
@@ -55,6 +91,11 @@ public class UserService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
     }
 
+    public Map<Long, User> getEntitiesByIds(Collection<Long> ids) {
+        return userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
     public Optional<User> getOptEntityById(Long id) {
         return userRepository.findById(id);
     }
@@ -84,11 +125,17 @@ public class UserService {
 
         User user = UserMapper.toEntity(dto);
         user.setId(null);
+        user.setPassword(passwordEncoder.encode(dto.password()));
 
         User saved = userRepository.save(user);
         return UserMapper.toDto(saved);
     }
 
+    /**
+     * A password change revokes every session of the user in the same transaction; caches are
+     * evicted after commit.
+     */
+    @Transactional
     public ResponseUserDto update(Long id, RequestUserDto dto, String adminSecretFromRequest) {
         User existing = userRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
@@ -106,22 +153,42 @@ public class UserService {
             }
         }
 
+        String previousEmail = existing.getEmail();
         existing.setEmail(dto.email());
         existing.setFullName(dto.fullName());
         existing.setRole(dto.role());
 
-        if (dto.password() != null && !dto.password().isBlank()) {
-            existing.setPassword(dto.password());
+        boolean passwordChanged = dto.password() != null && !dto.password().isBlank();
+        if (passwordChanged) {
+            existing.setPassword(passwordEncoder.encode(dto.password()));
         }
 
         User saved = userRepository.save(existing);
+        principalCache.evict(previousEmail);
+        basicCredentialCache.evict(previousEmail);
+        if (passwordChanged) {
+            refreshTokenService.revokeAll(saved.getId());
+            tokenRevocations.revokeUser(previousEmail);
+        }
         return UserMapper.toDto(saved);
     }
 
+    /**
+     * Revocations commit together with the delete, so a failed delete leaves the user's sessions intact.
+     */
+    @Transactional
     public void delete(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        User existing = userRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        refreshTokenService.revokeAll(existing.getId());
+        tokenRevocations.revokeUser(existing.getEmail());
+        userRepository.delete(existing);
+        try {
+            userRepository.flush();
+        } catch (DataIntegrityViolationException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "User still has bookings or courses");
         }
-        userRepository.deleteById(id);
+        principalCache.evict(existing.getEmail());
+        basicCredentialCache.evict(existing.getEmail());
     }
 }
@@ -0,0 +1,85 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.entity.Booking;
+import dev.temnikov.qa_test.entity.BookingStatus;
+import dev.temnikov.qa_test.repository.BookingRepository;
+import dev.temnikov.qa_test.repository.SessionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Per-session FIFO waitlist.
+ *
+ * Works on repositories directly so that both BookingService and SessionService can trigger
+ * promotion without depending on each other.
+ */
+@Service
+@RequiredArgsConstructor
+public class WaitlistService {
+
+    private static final int PROMOTION_BATCH = 20;
+
+    private final BookingRepository bookingRepository;
+    private final SessionRepository sessionRepository;
+    private final BookingHoldScheduler holdScheduler;
+    private final ChangeVersions changeVersions;
+    private final OccupancyHub occupancyHub;
+
+    /**
+     * Fills free seats of the session from the head of its waitlist.
+     * Runs in the caller's transaction, so promotion commits together with the change that freed the seat.
+     *
+     * @return number of promoted bookings
+     */
+    @Transactional
+    public int promote(Long sessionId) {
+        int promoted = promoteWhileSeatsLeft(sessionId);
+        if (promoted > 0) {
+            occupancyHub.markChanged(sessionId);
+        }
+        return promoted;
+    }
+
+    private int promoteWhileSeatsLeft(Long sessionId) {
+        int promoted = 0;
+        while (true) {
+            List<Long> head = bookingRepository.findWaitlistHead(sessionId, PageRequest.of(0, PROMOTION_BATCH));
+            if (head.isEmpty()) {
+                return promoted;
+            }
+            for (Long bookingId : head) {
+                if (sessionRepository.tryReserveSeats(sessionId, 1, changeVersions.current()) == 0) {
+                    return promoted;
+                }
+                // seat first, then claim: a booking promoted concurrently gives the seat back
+                LocalDateTime holdExpiresAt = holdScheduler.newHoldExpiry();
+                if (bookingRepository.promoteFromWaitlist(bookingId, holdExpiresAt, changeVersions.current()) == 1) {
+                    holdScheduler.schedule(bookingId, holdExpiresAt);
+                    promoted++;
+                } else {
+                    sessionRepository.releaseSeats(sessionId, 1, changeVersions.current());
+                }
+            }
+        }
+    }
+
+    /**
+     * 1-based position in the session waitlist, or null if the booking is not waitlisted.
+     */
+    public Integer positionOf(Booking booking) {
+        if (booking.getStatus() != BookingStatus.WAITLISTED) {
+            return null;
+        }
+        long ahead = bookingRepository.countWaitlistedAhead(
+                booking.getSession().getId(),
+                booking.getWaitlistedAt(),
+                booking.getId()
+        );
+        return (int) ahead + 1;
+    }
+}
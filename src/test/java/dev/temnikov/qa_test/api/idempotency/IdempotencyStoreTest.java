@@ -0,0 +1,109 @@
+package dev.temnikov.qa_test.api.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyStore store = new IdempotencyStore(3600, 100);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    void retryWithSameKeyReplaysTheFirstResult() {
+        String first = store.execute("user:key-1", "POST /api/bookings {1}", this::run);
+        String replayed = store.execute("user:key-1", "POST /api/bookings {1}", this::run);
+
+        assertThat(replayed).isSameAs(first);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void keyReusedForDifferentRequestIsRejectedWith422() {
+        store.execute("user:key-1", "POST /api/bookings {1}", this::run);
+
+        assertThatThrownBy(() -> store.execute("user:key-1", "POST /api/bookings {2}", this::run))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_CONTENT));
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void failedActionIsForgottenSoTheClientCanRetry() {
+        assertThatThrownBy(() -> store.execute("user:key-1", "fp", () -> {
+            runs.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Session capacity reached");
+        })).isInstanceOf(ResponseStatusException.class);
+
+        String retried = store.execute("user:key-1", "fp", this::run);
+
+        assertThat(retried).isEqualTo("result-2");
+    }
+
+    @Test
+    void concurrentDuplicatesRunTheActionOnce() throws Exception {
+        int clients = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return store.execute("user:key-1", "fp", () -> {
+                        sleep(50);
+                        return run();
+                    });
+                }));
+            }
+            start.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("result-1");
+            }
+            assertThat(runs).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void keysAreIndependent() {
+        store.execute("alice:key-1", "fp", this::run);
+        store.execute("bob:key-1", "fp", this::run);
+
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void blankKeyIsRejected() {
+        assertThatThrownBy(() -> store.execute(" ", "fp", this::run))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThat(runs).hasValue(0);
+    }
+
+    private String run() {
+        return "result-" + runs.incrementAndGet();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
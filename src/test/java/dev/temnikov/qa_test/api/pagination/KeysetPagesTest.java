@@ -0,0 +1,112 @@
+package dev.temnikov.qa_test.api.pagination;
+
+import dev.temnikov.qa_test.api.dto.CursorPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetPagesTest {
+
+    private static final int SIZE = 3;
+    private static final List<Long> IDS = LongStream.rangeClosed(1, 7).boxed().toList();
+
+    @Test
+    void walksForwardToTheLastPage() {
+        CursorPage<Long> first = page(null);
+        assertThat(first.content()).containsExactly(1L, 2L, 3L);
+        assertThat(first.prev()).isNull();
+
+        CursorPage<Long> second = page(first.next());
+        assertThat(second.content()).containsExactly(4L, 5L, 6L);
+        assertThat(second.prev()).isNotNull();
+
+        CursorPage<Long> last = page(second.next());
+        assertThat(last.content()).containsExactly(7L);
+        assertThat(last.next()).isNull();
+        assertThat(last.prev()).isNotNull();
+    }
+
+    @Test
+    void walksBackwardToTheFirstPage() {
+        CursorPage<Long> last = page(page(page(null).next()).next());
+
+        CursorPage<Long> middle = page(last.prev());
+        assertThat(middle.content()).containsExactly(4L, 5L, 6L);
+        assertThat(middle.next()).isNotNull();
+
+        CursorPage<Long> first = page(middle.prev());
+        assertThat(first.content()).containsExactly(1L, 2L, 3L);
+        assertThat(first.prev()).isNull();
+        assertThat(page(first.next()).content()).containsExactly(4L, 5L, 6L);
+    }
+
+    @Test
+    void pageAfterTheLastRowIsEmptyAndLeadsBack() {
+        String pastEnd = new PageCursor("id", "7", 7, false).encode();
+
+        CursorPage<Long> empty = page(pastEnd);
+        assertThat(empty.content()).isEmpty();
+        assertThat(empty.next()).isNull();
+        assertThat(page(empty.prev()).content()).containsExactly(4L, 5L, 6L);
+    }
+
+    @Test
+    void pageBeforeTheFirstRowIsEmptyAndLeadsForward() {
+        String beforeStart = new PageCursor("id", "1", 1, true).encode();
+
+        CursorPage<Long> empty = page(beforeStart);
+        assertThat(empty.content()).isEmpty();
+        assertThat(empty.prev()).isNull();
+        assertThat(page(empty.next()).content()).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoNext() {
+        CursorPage<Long> page = KeysetPages.toPage(List.of(1L, 2L, 3L), SIZE, null, "id",
+                String::valueOf, id -> id, id -> id);
+
+        assertThat(page.next()).isNull();
+    }
+
+    @Test
+    void cursorForAnotherSortKeyIsRejected() {
+        String cursor = new PageCursor("startTime", "2030-01-01T10:00", 1, false).encode();
+
+        assertThatThrownBy(() -> PageCursor.decode(cursor, "id"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> PageCursor.decode("not a cursor", "id"))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void cursorSurvivesARoundTrip() {
+        PageCursor cursor = new PageCursor("startTime", "2030-01-01T10:00|x", 42, true);
+
+        assertThat(PageCursor.decode(cursor.encode(), "startTime")).isEqualTo(cursor);
+    }
+
+    /**
+     * Runs the keyset query the services run, over {@link #IDS}.
+     */
+    private static CursorPage<Long> page(String cursor) {
+        PageCursor position = PageCursor.decode(cursor, "id");
+        List<Long> rows;
+        if (position == null) {
+            rows = IDS.stream().limit(SIZE + 1).toList();
+        } else if (position.backward()) {
+            rows = IDS.stream().filter(id -> id < position.id())
+                    .sorted(Comparator.reverseOrder()).limit(SIZE + 1).toList();
+        } else {
+            rows = IDS.stream().filter(id -> id > position.id()).limit(SIZE + 1).toList();
+        }
+        return KeysetPages.toPage(rows, SIZE, position, "id", String::valueOf, id -> id, id -> id);
+    }
+}
@@ -0,0 +1,53 @@
+package dev.temnikov.qa_test.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs through the embedded server, so the client address comes from X-Forwarded-For of a trusted
+ * (loopback) proxy, as it would behind a load balancer.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "rate-limit.auth.capacity=2",
+                "rate-limit.auth.refill-per-second=0.01"
+        }
+)
+class ForwardedClientRateLimitTest {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void clientsBehindTheSameProxyGetSeparateBuckets() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            assertThat(login("203.0.113.1")).isNotEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        }
+        assertThat(login("203.0.113.1")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+
+        assertThat(login("203.0.113.2")).isNotEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    private int login(String forwardedFor) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofString("""
+                        {"email":"nobody@example.com","password":"wrong"}
+                        """))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,47 @@
+package dev.temnikov.qa_test.security;
+
+import dev.temnikov.qa_test.entity.User;
+import dev.temnikov.qa_test.entity.UserRole;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenServiceTest {
+
+    private final JwtTokenService jwtTokenService =
+            new JwtTokenService("0123456789abcdef0123456789abcdef", 3600, 100);
+
+    @Test
+    void issueTimeKeepsMilliseconds() {
+        Instant before = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        String token = jwtTokenService.generateToken(principal()).token();
+        Instant after = Instant.now();
+
+        JwtTokenService.VerifiedToken verified = jwtTokenService.verify(token);
+
+        assertThat(verified.issuedAt()).isBetween(before, after);
+        assertThat(verified.subject()).isEqualTo("jwt@example.com");
+    }
+
+    @Test
+    void tokensIssuedWithinOneSecondAreOrdered() throws InterruptedException {
+        String first = jwtTokenService.generateToken(principal()).token();
+        Thread.sleep(5);
+        String second = jwtTokenService.generateToken(principal()).token();
+
+        assertThat(jwtTokenService.verify(second).issuedAt()).isAfter(jwtTokenService.verify(first).issuedAt());
+    }
+
+    private static SecurityUser principal() {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("jwt@example.com");
+        user.setFullName("Jwt Test");
+        user.setRole(UserRole.USER);
+        user.setPassword("{noop}pw");
+        return new SecurityUser(user);
+    }
+}
@@ -0,0 +1,78 @@
+package dev.temnikov.qa_test.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    @Test
+    void burstUpToCapacityPassesThenGets429WithRetryAfter() throws Exception {
+        RateLimitFilter filter = filter(3, 0.5);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+        MockHttpServletResponse limited = login(filter, "10.0.0.1");
+
+        assertThat(limited.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        // one token every 2 s
+        assertThat(limited.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(limited.getContentType()).isEqualTo("application/json");
+        assertThat(limited.getContentAsString()).contains("\"path\":\"/api/auth/login\"");
+    }
+
+    @Test
+    void bucketRefillsOverTime() throws Exception {
+        RateLimitFilter filter = filter(1, 20);
+
+        assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        MockHttpServletResponse limited = login(filter, "10.0.0.1");
+        assertThat(limited.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        // rounded up to whole seconds
+        assertThat(limited.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+        Thread.sleep(100);
+
+        assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void clientsHaveSeparateBuckets() throws Exception {
+        RateLimitFilter filter = filter(1, 0.5);
+
+        assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(login(filter, "10.0.0.2").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void unlimitedRoutesAreNotCounted() throws Exception {
+        RateLimitFilter filter = filter(1, 0.5);
+
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sessions");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+        assertThat(login(filter, "127.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    private static RateLimitFilter filter(int authCapacity, double authRefillPerSecond) {
+        return new RateLimitFilter(new RateLimiter(true, 1000, authCapacity, authRefillPerSecond, 20, 5));
+    }
+
+    private static MockHttpServletResponse login(RateLimitFilter filter, String remoteAddr) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
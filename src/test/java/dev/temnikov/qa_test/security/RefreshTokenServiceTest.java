@@ -0,0 +1,128 @@
+package dev.temnikov.qa_test.security;
+
+import dev.temnikov.qa_test.entity.User;
+import dev.temnikov.qa_test.entity.UserRole;
+import dev.temnikov.qa_test.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        User newUser = new User();
+        newUser.setEmail(UUID.randomUUID() + "@example.com");
+        newUser.setFullName("Refresh Test");
+        newUser.setRole(UserRole.USER);
+        newUser.setPassword("{noop}pw");
+        user = userRepository.save(newUser);
+    }
+
+    @Test
+    void rotationHandsOutAWorkingSuccessor() {
+        String first = refreshTokenService.issue(user).token();
+
+        RefreshTokenService.Refreshed refreshed = refreshTokenService.rotate(first);
+        RefreshTokenService.Refreshed again = refreshTokenService.rotate(refreshed.refreshToken().token());
+
+        assertThat(refreshed.user().getId()).isEqualTo(user.getId());
+        assertThat(refreshed.refreshToken().token()).isNotEqualTo(first);
+        assertThat(again.refreshToken().token()).isNotEqualTo(refreshed.refreshToken().token());
+    }
+
+    @Test
+    void reusedTokenRevokesTheWholeFamily() {
+        String stolen = refreshTokenService.issue(user).token();
+        String successor = refreshTokenService.rotate(stolen).refreshToken().token();
+
+        assertUnauthorized(stolen, "already used");
+        // the legitimate holder has to log in again as well
+        assertUnauthorized(successor, "invalid");
+    }
+
+    @Test
+    void concurrentRotationsOfOneTokenLetExactlyOneThrough() throws Exception {
+        int clients = 8;
+        String token = refreshTokenService.issue(user).token();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<RefreshTokenService.Refreshed>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return refreshTokenService.rotate(token);
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<RefreshTokenService.Refreshed> result : results) {
+                try {
+                    result.get(30, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (ExecutionException ex) {
+                    assertThat(ex.getCause()).isInstanceOfSatisfying(ResponseStatusException.class,
+                            rse -> assertThat(rse.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED));
+                }
+            }
+            assertThat(succeeded).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void reuseLeavesOtherFamiliesAlone() {
+        String otherDevice = refreshTokenService.issue(user).token();
+        String stolen = refreshTokenService.issue(user).token();
+        refreshTokenService.rotate(stolen);
+
+        assertUnauthorized(stolen, "already used");
+        assertThat(refreshTokenService.rotate(otherDevice).user().getId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void logoutRevokesTheFamily() {
+        String first = refreshTokenService.issue(user).token();
+        String successor = refreshTokenService.rotate(first).refreshToken().token();
+
+        refreshTokenService.revoke(first);
+
+        assertUnauthorized(successor, "invalid");
+    }
+
+    private void assertUnauthorized(String token, String reason) {
+        assertThatThrownBy(() -> refreshTokenService.rotate(token))
+                .isInstanceOfSatisfying(ResponseStatusException.class, ex -> {
+                    assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+                    assertThat(ex.getReason()).contains(reason);
+                });
+    }
+}
@@ -0,0 +1,102 @@
+package dev.temnikov.qa_test.security;
+
+import dev.temnikov.qa_test.entity.RevokedToken;
+import dev.temnikov.qa_test.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationsTest {
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+
+    @Test
+    void tokenMissingFromTheFilterIsAcceptedWithoutAQuery() {
+        TokenRevocations revocations = revocations(1000);
+        revocations.revokeToken(token("revoked"));
+
+        assertThat(revocations.isRevoked(token("other"))).isFalse();
+        verify(repository, never()).existsByKindAndTokenKey(any(), eq("other"));
+        verify(repository, never()).isUserRevokedSince(anyString(), any());
+    }
+
+    @Test
+    void revokedTokenIsConfirmedAgainstTheTable() {
+        TokenRevocations revocations = revocations(1000);
+        revocations.revokeToken(token("revoked"));
+        when(repository.existsByKindAndTokenKey(RevokedToken.Kind.TOKEN, "revoked")).thenReturn(true);
+
+        assertThat(revocations.isRevoked(token("revoked"))).isTrue();
+    }
+
+    @Test
+    void falsePositiveIsClearedByTheTable() {
+        // far more keys than the filter was sized for, so most absent keys hit
+        TokenRevocations revocations = revocations(8);
+        for (int i = 0; i < 500; i++) {
+            revocations.revokeToken(token("revoked-" + i));
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(revocations.isRevoked(token("live-" + i))).isFalse();
+        }
+        verify(repository, atLeastOnce()).existsByKindAndTokenKey(eq(RevokedToken.Kind.TOKEN), anyString());
+    }
+
+    @Test
+    void revocationFromAnotherNodeIsPickedUpByThePoll() {
+        TokenRevocations revocations = revocations(1000);
+        when(repository.existsByKindAndTokenKey(RevokedToken.Kind.TOKEN, "elsewhere")).thenReturn(true);
+        assertThat(revocations.isRevoked(token("elsewhere"))).isFalse();
+
+        when(repository.findKeysRevokedSince(any())).thenReturn(List.of(key(RevokedToken.Kind.TOKEN, "elsewhere")));
+        revocations.poll();
+
+        assertThat(revocations.isRevoked(token("elsewhere"))).isTrue();
+    }
+
+    @Test
+    void userRevocationCoversTokensOfThatSubject() {
+        TokenRevocations revocations = revocations(1000);
+        revocations.revokeUser("user@example.com");
+        when(repository.isUserRevokedSince(eq("user@example.com"), any())).thenReturn(true);
+
+        assertThat(revocations.isRevoked(token("any"))).isTrue();
+    }
+
+    private TokenRevocations revocations(int expectedEntries) {
+        TokenRevocations revocations = new TokenRevocations(repository, 3600, expectedEntries, 0.01);
+        revocations.init();
+        return revocations;
+    }
+
+    private static JwtTokenService.VerifiedToken token(String tokenId) {
+        Instant now = Instant.now();
+        return new JwtTokenService.VerifiedToken("user@example.com", tokenId, now, now.plusSeconds(3600));
+    }
+
+    private static RevokedTokenRepository.RevokedKey key(RevokedToken.Kind kind, String tokenKey) {
+        return new RevokedTokenRepository.RevokedKey() {
+            @Override
+            public RevokedToken.Kind getKind() {
+                return kind;
+            }
+
+            @Override
+            public String getTokenKey() {
+                return tokenKey;
+            }
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.api.dto.RequestBookingBatchDto;
+import dev.temnikov.qa_test.api.dto.RequestBookingDto;
+import dev.temnikov.qa_test.api.dto.ResponseBookingBatchDto;
+import dev.temnikov.qa_test.entity.BookingStatus;
+import dev.temnikov.qa_test.entity.Course;
+import dev.temnikov.qa_test.entity.Session;
+import dev.temnikov.qa_test.entity.User;
+import dev.temnikov.qa_test.entity.UserRole;
+import dev.temnikov.qa_test.repository.BookingRepository;
+import dev.temnikov.qa_test.repository.CourseRepository;
+import dev.temnikov.qa_test.repository.SessionRepository;
+import dev.temnikov.qa_test.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BookingBatchTest {
+
+    private static final long MISSING_SESSION_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private Course course;
+    private User user;
+
+    @BeforeEach
+    void createCourseAndUser() {
+        User trainer = userRepository.save(user(UserRole.TRAINER));
+        course = new Course();
+        course.setName("Course " + UUID.randomUUID());
+        course.setTrainerId(trainer.getId());
+        course = courseRepository.save(course);
+        user = userRepository.save(user(UserRole.USER));
+    }
+
+    @Test
+    void partialBatchCreatesValidItemsAroundFailuresInRequestOrder() {
+        Session open = session(1, 5);
+        Session full = session(2, 1);
+        bookingService.createBatch(batch(RequestBookingBatchDto.Mode.PARTIAL, full.getId()), user);
+
+        ResponseBookingBatchDto result = bookingService.createBatch(batch(RequestBookingBatchDto.Mode.PARTIAL,
+                open.getId(), full.getId(), MISSING_SESSION_ID, open.getId()), user);
+
+        assertThat(result.items()).extracting(ResponseBookingBatchDto.Item::index).containsExactly(0, 1, 2, 3);
+        assertThat(result.items()).extracting(ResponseBookingBatchDto.Item::status).containsExactly(201, 409, 404, 201);
+        assertThat(result.items().get(0).booking().sessionId()).isEqualTo(open.getId());
+        assertThat(result.items().get(0).booking().status()).isEqualTo(BookingStatus.PENDING.name());
+        assertThat(result.items().get(1).booking()).isNull();
+        assertThat(result.items().get(1).message()).isEqualTo("Session capacity reached");
+        assertThat(result.items().get(2).message()).isEqualTo("Session not found");
+        assertThat(result.items().get(3).booking().id()).isNotEqualTo(result.items().get(0).booking().id());
+        assertThat(result.created()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(2);
+
+        assertThat(bookedCount(open)).isEqualTo(2);
+        assertThat(bookedCount(full)).isEqualTo(1);
+        assertThat(bookingRepository.countBySessionIdAndStatusIn(open.getId(), BookingStatus.ACTIVE)).isEqualTo(2);
+    }
+
+    @Test
+    void partialBatchFillsASessionInRequestOrder() {
+        Session session = session(1, 2);
+
+        ResponseBookingBatchDto result = bookingService.createBatch(batch(RequestBookingBatchDto.Mode.PARTIAL,
+                session.getId(), session.getId(), session.getId()), user);
+
+        assertThat(result.items()).extracting(ResponseBookingBatchDto.Item::status).containsExactly(201, 201, 409);
+        assertThat(bookedCount(session)).isEqualTo(2);
+    }
+
+    @Test
+    void allOrNothingBatchCreatesNothingWhenAnItemInTheMiddleFails() {
+        Session open = session(1, 5);
+        Session full = session(2, 1);
+        bookingService.createBatch(batch(RequestBookingBatchDto.Mode.PARTIAL, full.getId()), user);
+
+        ResponseBookingBatchDto result = bookingService.createBatch(batch(RequestBookingBatchDto.Mode.ALL_OR_NOTHING,
+                open.getId(), full.getId(), open.getId()), user);
+
+        assertThat(result.items()).extracting(ResponseBookingBatchDto.Item::index).containsExactly(0, 1, 2);
+        assertThat(result.items()).extracting(ResponseBookingBatchDto.Item::status).containsExactly(424, 409, 424);
+        assertThat(result.items()).allSatisfy(item -> assertThat(item.booking()).isNull());
+        assertThat(result.created()).isZero();
+        assertThat(result.failed()).isEqualTo(3);
+
+        assertThat(bookedCount(open)).isZero();
+        assertThat(bookingRepository.countBySessionIdAndStatusIn(open.getId(), BookingStatus.ACTIVE)).isZero();
+    }
+
+    private RequestBookingBatchDto batch(RequestBookingBatchDto.Mode mode, Long... sessionIds) {
+        List<RequestBookingDto> items = Arrays.stream(sessionIds)
+                .map(sessionId -> new RequestBookingDto(null, sessionId, null))
+                .toList();
+        return new RequestBookingBatchDto(items, mode);
+    }
+
+    private Session session(int dayOffset, int capacity) {
+        Session session = new Session();
+        session.setCourse(course);
+        session.setStartTime(LocalDateTime.now().plusDays(7 + dayOffset).withNano(0));
+        session.setEndTime(session.getStartTime().plusHours(1));
+        session.setCapacity(capacity);
+        return sessionRepository.save(session);
+    }
+
+    private int bookedCount(Session session) {
+        return sessionRepository.findById(session.getId()).orElseThrow().getBookedCount();
+    }
+
+    private static User user(UserRole role) {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setFullName("Test " + role);
+        user.setRole(role);
+        user.setPassword("{noop}pw");
+        return user;
+    }
+}
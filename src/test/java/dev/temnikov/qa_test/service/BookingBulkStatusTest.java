@@ -0,0 +1,154 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.api.dto.RequestBookingBulkStatusDto;
+import dev.temnikov.qa_test.api.dto.RequestBookingDto;
+import dev.temnikov.qa_test.api.dto.ResponseBookingBulkStatusDto;
+import dev.temnikov.qa_test.api.dto.ResponseBookingDto;
+import dev.temnikov.qa_test.api.dto.ResponseChangesDto;
+import dev.temnikov.qa_test.entity.BookingStatus;
+import dev.temnikov.qa_test.entity.Course;
+import dev.temnikov.qa_test.entity.Session;
+import dev.temnikov.qa_test.entity.User;
+import dev.temnikov.qa_test.entity.UserRole;
+import dev.temnikov.qa_test.repository.CourseRepository;
+import dev.temnikov.qa_test.repository.SessionRepository;
+import dev.temnikov.qa_test.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BookingBulkStatusTest {
+
+    private static final int CAPACITY = 3;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ChangeVersions changeVersions;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    private User admin;
+    private Session session;
+    private final List<ResponseBookingDto> pending = new ArrayList<>();
+    private ResponseBookingDto waitlisted;
+
+    @BeforeEach
+    void fillSession() {
+        admin = userRepository.save(user(UserRole.ADMIN));
+        User trainer = userRepository.save(user(UserRole.TRAINER));
+        Course course = new Course();
+        course.setName("Course " + UUID.randomUUID());
+        course.setTrainerId(trainer.getId());
+        course = courseRepository.save(course);
+
+        Session newSession = new Session();
+        newSession.setCourse(course);
+        newSession.setStartTime(LocalDateTime.now().plusDays(7).withNano(0));
+        newSession.setEndTime(newSession.getStartTime().plusHours(1));
+        newSession.setCapacity(CAPACITY);
+        session = sessionRepository.save(newSession);
+
+        for (int i = 0; i < CAPACITY; i++) {
+            pending.add(book(false));
+        }
+        waitlisted = book(true);
+        assertThat(waitlisted.status()).isEqualTo(BookingStatus.WAITLISTED.name());
+    }
+
+    @Test
+    void bulkCancelReleasesSeatsPromotesAndShowsUpInTheFeed() {
+        long since = visibleChanges(null).next();
+
+        ResponseBookingBulkStatusDto result = bookingService.updateStatuses(new RequestBookingBulkStatusDto(
+                List.of(pending.get(0).id(), pending.get(1).id()), BookingStatus.CANCELLED.name()));
+
+        assertThat(result.updated()).isEqualTo(2);
+        assertThat(result.failed()).isZero();
+        // two seats freed, one taken again by the promoted waitlisted booking
+        assertThat(bookedCount()).isEqualTo(CAPACITY - 1);
+
+        ResponseChangesDto<ResponseBookingDto> changes = visibleChanges(since);
+        Map<Long, String> statuses = statusesById(changes);
+        assertThat(statuses).containsOnlyKeys(pending.get(0).id(), pending.get(1).id(), waitlisted.id());
+        assertThat(statuses.get(pending.get(0).id())).isEqualTo(BookingStatus.CANCELLED.name());
+        assertThat(statuses.get(pending.get(1).id())).isEqualTo(BookingStatus.CANCELLED.name());
+        assertThat(statuses.get(waitlisted.id())).isEqualTo(BookingStatus.PENDING.name());
+
+        assertThat(statusesById(visibleChanges(changes.next()))).isEmpty();
+    }
+
+    @Test
+    void confirmSessionKeepsSeatsAndShowsUpInTheFeed() {
+        long since = visibleChanges(null).next();
+
+        ResponseBookingBulkStatusDto result = bookingService.confirmSession(session.getId(), admin);
+
+        assertThat(result.updated()).isEqualTo(CAPACITY);
+        assertThat(bookedCount()).isEqualTo(CAPACITY);
+
+        ResponseChangesDto<ResponseBookingDto> changes = visibleChanges(since);
+        Map<Long, String> statuses = statusesById(changes);
+        assertThat(statuses).containsOnlyKeys(pending.stream().map(ResponseBookingDto::id).toArray(Long[]::new));
+        assertThat(statuses.values()).containsOnly(BookingStatus.CONFIRMED.name());
+
+        // confirmed bookings still hold their seats until they are cancelled
+        bookingService.updateStatuses(new RequestBookingBulkStatusDto(
+                List.of(pending.get(2).id()), BookingStatus.CANCELLED.name()));
+        assertThat(bookedCount()).isEqualTo(CAPACITY);
+        assertThat(statusesById(visibleChanges(changes.next())))
+                .containsEntry(pending.get(2).id(), BookingStatus.CANCELLED.name())
+                .containsEntry(waitlisted.id(), BookingStatus.PENDING.name());
+    }
+
+    /**
+     * Publishes this node's watermark right away instead of waiting for the scheduled mark.
+     */
+    private ResponseChangesDto<ResponseBookingDto> visibleChanges(Long since) {
+        changeVersions.mark();
+        return bookingService.getChanges(since);
+    }
+
+    private Map<Long, String> statusesById(ResponseChangesDto<ResponseBookingDto> changes) {
+        return changes.changed().stream()
+                .filter(booking -> booking.sessionId().equals(session.getId()))
+                .collect(Collectors.toMap(ResponseBookingDto::id, ResponseBookingDto::status, (a, b) -> b));
+    }
+
+    private int bookedCount() {
+        return sessionRepository.findById(session.getId()).orElseThrow().getBookedCount();
+    }
+
+    private ResponseBookingDto book(boolean joinWaitlist) {
+        User user = userRepository.save(user(UserRole.USER));
+        return bookingService.create(new RequestBookingDto(null, session.getId(), null), user, joinWaitlist);
+    }
+
+    private static User user(UserRole role) {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setFullName("Test " + role);
+        user.setRole(role);
+        user.setPassword("{noop}pw");
+        return user;
+    }
+}
@@ -0,0 +1,183 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.api.dto.RequestBookingDto;
+import dev.temnikov.qa_test.api.dto.ResponseBookingDto;
+import dev.temnikov.qa_test.entity.BookingStatus;
+import dev.temnikov.qa_test.entity.Course;
+import dev.temnikov.qa_test.entity.Session;
+import dev.temnikov.qa_test.entity.User;
+import dev.temnikov.qa_test.entity.UserRole;
+import dev.temnikov.qa_test.repository.CourseRepository;
+import dev.temnikov.qa_test.repository.SessionRepository;
+import dev.temnikov.qa_test.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BookingCapacityConcurrencyTest {
+
+    private static final int CAPACITY = 3;
+    private static final int CLIENTS = 16;
+
+    @Autowired
+    private BookingCommandService bookingCommandService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private FullSessionHints fullSessionHints;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    private final ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+
+    private Session session;
+
+    @BeforeEach
+    void createSession() {
+        User trainer = userRepository.save(user(UserRole.TRAINER));
+        Course course = new Course();
+        course.setName("Course " + UUID.randomUUID());
+        course.setTrainerId(trainer.getId());
+        course = courseRepository.save(course);
+
+        Session newSession = new Session();
+        newSession.setCourse(course);
+        newSession.setStartTime(LocalDateTime.now().plusDays(7).withNano(0));
+        newSession.setEndTime(newSession.getStartTime().plusHours(1));
+        newSession.setCapacity(CAPACITY);
+        session = sessionRepository.save(newSession);
+    }
+
+    @AfterEach
+    void stopClients() throws InterruptedException {
+        clients.shutdownNow();
+        clients.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void concurrentBookingsNeverExceedCapacity() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            users.add(userRepository.save(user(UserRole.USER)));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HttpStatus>> results = new ArrayList<>();
+        for (User user : users) {
+            results.add(clients.submit(() -> {
+                start.await();
+                return book(user);
+            }));
+        }
+        start.countDown();
+
+        int created = 0;
+        int rejected = 0;
+        for (Future<HttpStatus> result : results) {
+            HttpStatus status = result.get(30, TimeUnit.SECONDS);
+            if (status == HttpStatus.CREATED) {
+                created++;
+            } else if (status == HttpStatus.CONFLICT) {
+                rejected++;
+            }
+        }
+
+        assertThat(created).isEqualTo(CAPACITY);
+        assertThat(rejected).isEqualTo(CLIENTS - CAPACITY);
+        assertThat(sessionRepository.findById(session.getId()).orElseThrow().getBookedCount()).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void fullSessionIsRejectedUntilASeatIsReleased() {
+        List<ResponseBookingDto> bookings = new ArrayList<>();
+        List<User> owners = new ArrayList<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            User owner = userRepository.save(user(UserRole.USER));
+            owners.add(owner);
+            bookings.add(bookingCommandService.create(request(), owner, false).join());
+        }
+        User late = userRepository.save(user(UserRole.USER));
+
+        assertThat(book(late)).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(fullSessionHints.isKnownFull(session.getId())).isTrue();
+
+        bookingService.cancel(bookings.get(0).id(), owners.get(0));
+
+        assertThat(fullSessionHints.isKnownFull(session.getId())).isFalse();
+        assertThat(book(late)).isEqualTo(HttpStatus.CREATED);
+    }
+
+    @Test
+    void recalculationRepairsDriftedCountAndReopensTheSession() {
+        bookingCommandService.create(request(), userRepository.save(user(UserRole.USER)), false).join();
+        jdbcTemplate.update("update session set booked_count = ? where id = ?", CAPACITY, session.getId());
+        User late = userRepository.save(user(UserRole.USER));
+        assertThat(book(late)).isEqualTo(HttpStatus.CONFLICT);
+
+        assertThat(sessionService.recalculateBookedCounts()).isGreaterThanOrEqualTo(1);
+
+        assertThat(sessionRepository.findById(session.getId()).orElseThrow().getBookedCount()).isEqualTo(1);
+        assertThat(fullSessionHints.isKnownFull(session.getId())).isFalse();
+        assertThat(book(late)).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private HttpStatus book(User user) {
+        try {
+            ResponseBookingDto booking = bookingCommandService.create(request(), user, false).join();
+            assertThat(booking.status()).isEqualTo(BookingStatus.PENDING.name());
+            return HttpStatus.CREATED;
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof ResponseStatusException rse) {
+                return HttpStatus.valueOf(rse.getStatusCode().value());
+            }
+            throw ex;
+        }
+    }
+
+    private RequestBookingDto request() {
+        return new RequestBookingDto(null, session.getId(), null);
+    }
+
+    private static User user(UserRole role) {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setFullName("Test " + role);
+        user.setRole(role);
+        user.setPassword("{noop}pw");
+        return user;
+    }
+}
@@ -0,0 +1,79 @@
+package dev.temnikov.qa_test.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookingHoldSchedulerTest {
+
+    private static final long TICK_MILLIS = 1000;
+
+    private final BookingHoldScheduler scheduler = new BookingHoldScheduler(900, TICK_MILLIS, 8);
+
+    @Test
+    void holdExpiresOnItsDeadlineTick() {
+        scheduler.advance(0);
+        scheduler.schedule(1L, at(5_000));
+
+        assertThat(scheduler.advance(4_999)).isEmpty();
+        assertThat(scheduler.advance(5_000)).containsExactly(1L);
+        assertThat(scheduler.advance(6_000)).isEmpty();
+    }
+
+    @Test
+    void deadlineBetweenTicksRoundsUp() {
+        scheduler.advance(0);
+        scheduler.schedule(1L, at(2_500));
+
+        assertThat(scheduler.advance(2_999)).isEmpty();
+        assertThat(scheduler.advance(3_000)).containsExactly(1L);
+    }
+
+    @Test
+    void holdSeveralRotationsAheadSurvivesEarlierPassesOverItsBucket() {
+        scheduler.advance(0);
+        // wheel of 8 buckets, deadline tick 19 shares a bucket with ticks 3 and 11
+        scheduler.schedule(1L, at(19_000));
+
+        for (long now = 1_000; now < 19_000; now += TICK_MILLIS) {
+            assertThat(scheduler.advance(now)).as("at %d ms", now).isEmpty();
+        }
+        assertThat(scheduler.advance(19_000)).containsExactly(1L);
+    }
+
+    @Test
+    void longPauseReturnsEveryDueHoldOnce() {
+        scheduler.advance(0);
+        scheduler.schedule(1L, at(3_000));
+        scheduler.schedule(2L, at(7_000));
+        scheduler.schedule(3L, at(40_000));
+        scheduler.advance(1_000);
+
+        assertThat(scheduler.advance(30_000)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(scheduler.advance(39_000)).isEmpty();
+        assertThat(scheduler.advance(40_000)).containsExactly(3L);
+    }
+
+    @Test
+    void alreadyExpiredHoldIsReturnedOnNextAdvance() {
+        scheduler.advance(10_000);
+        scheduler.schedule(1L, at(2_000));
+
+        assertThat(scheduler.advance(10_000)).containsExactly(1L);
+    }
+
+    @Test
+    void wheelSizeMustBePowerOfTwo() {
+        assertThatThrownBy(() -> new BookingHoldScheduler(900, TICK_MILLIS, 6))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static LocalDateTime at(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
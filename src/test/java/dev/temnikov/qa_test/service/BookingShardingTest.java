@@ -0,0 +1,141 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.api.dto.RequestBookingDto;
+import dev.temnikov.qa_test.api.dto.ResponseBookingDto;
+import dev.temnikov.qa_test.entity.BookingStatus;
+import dev.temnikov.qa_test.entity.Course;
+import dev.temnikov.qa_test.entity.Session;
+import dev.temnikov.qa_test.entity.User;
+import dev.temnikov.qa_test.entity.UserRole;
+import dev.temnikov.qa_test.repository.CourseRepository;
+import dev.temnikov.qa_test.repository.SessionRepository;
+import dev.temnikov.qa_test.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "booking.sharding.enabled=true",
+        "booking.sharding.shards=2",
+        "booking.sharding.queue-capacity=2"
+})
+class BookingShardingTest {
+
+    @Autowired
+    private BookingCommandService bookingCommandService;
+
+    @Autowired
+    private BookingShardExecutor shardExecutor;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private Session session;
+
+    @BeforeEach
+    void createSession() {
+        User trainer = userRepository.save(user(UserRole.TRAINER));
+        Course course = new Course();
+        course.setName("Course " + UUID.randomUUID());
+        course.setTrainerId(trainer.getId());
+        course = courseRepository.save(course);
+
+        Session newSession = new Session();
+        newSession.setCourse(course);
+        newSession.setStartTime(LocalDateTime.now().plusDays(7).withNano(0));
+        newSession.setEndTime(newSession.getStartTime().plusHours(1));
+        newSession.setCapacity(1);
+        session = sessionRepository.save(newSession);
+    }
+
+    @AfterEach
+    void releaseShard() {
+        release.countDown();
+    }
+
+    @Test
+    void fullShardQueueRejectsWith503() throws Exception {
+        blockShard();
+        CompletableFuture<ResponseBookingDto> queued1 = book(userRepository.save(user(UserRole.USER)), true);
+        CompletableFuture<ResponseBookingDto> queued2 = book(userRepository.save(user(UserRole.USER)), true);
+
+        CompletableFuture<ResponseBookingDto> overflow = book(userRepository.save(user(UserRole.USER)), true);
+
+        assertThatThrownBy(overflow::join)
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+
+        release.countDown();
+        assertThat(queued1.get(10, TimeUnit.SECONDS).id()).isNotNull();
+        assertThat(queued2.get(10, TimeUnit.SECONDS).id()).isNotNull();
+    }
+
+    @Test
+    void commandsForOneSessionRunInSubmissionOrder() throws Exception {
+        blockShard();
+        CompletableFuture<ResponseBookingDto> first = book(userRepository.save(user(UserRole.USER)), true);
+        CompletableFuture<ResponseBookingDto> second = book(userRepository.save(user(UserRole.USER)), true);
+
+        release.countDown();
+
+        // capacity 1: whichever command runs first takes the seat
+        assertThat(first.get(10, TimeUnit.SECONDS).status()).isEqualTo(BookingStatus.PENDING.name());
+        ResponseBookingDto waitlisted = second.get(10, TimeUnit.SECONDS);
+        assertThat(waitlisted.status()).isEqualTo(BookingStatus.WAITLISTED.name());
+        assertThat(waitlisted.waitlistPosition()).isEqualTo(1);
+    }
+
+    /**
+     * Occupies the session's shard until {@link #release} opens, so later commands queue behind it.
+     */
+    private void blockShard() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        shardExecutor.submit(session.getId(), () -> {
+            running.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private CompletableFuture<ResponseBookingDto> book(User user, boolean joinWaitlist) {
+        return bookingCommandService.create(new RequestBookingDto(null, session.getId(), null), user, joinWaitlist);
+    }
+
+    private static User user(UserRole role) {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setFullName("Test " + role);
+        user.setRole(role);
+        user.setPassword("{noop}pw");
+        return user;
+    }
+}
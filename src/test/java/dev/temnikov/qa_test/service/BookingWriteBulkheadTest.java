@@ -0,0 +1,160 @@
+package dev.temnikov.qa_test.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookingWriteBulkheadTest {
+
+    private static final long TARGET_LATENCY_MILLIS = 50;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(16);
+
+    @AfterEach
+    void stopExecutor() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void slowWritesShrinkTheLimitDownToTheMinimum() {
+        BookingWriteBulkhead bulkhead = bulkhead(4, 1, 8, 10);
+
+        bulkhead.execute(() -> sleep(TARGET_LATENCY_MILLIS + 20));
+        assertThat(bulkhead.currentLimit()).isEqualTo(4 * 0.5);
+
+        for (int i = 0; i < 5; i++) {
+            bulkhead.execute(() -> sleep(TARGET_LATENCY_MILLIS + 20));
+        }
+        assertThat(bulkhead.currentLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void transientDatabaseErrorsShrinkTheLimitButBusinessErrorsDoNot() {
+        BookingWriteBulkhead bulkhead = bulkhead(4, 1, 8, 10);
+
+        assertThatThrownBy(() -> bulkhead.execute(() -> {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Session capacity reached");
+        })).isInstanceOf(ResponseStatusException.class);
+        assertThat(bulkhead.currentLimit()).isEqualTo(4);
+
+        assertThatThrownBy(() -> bulkhead.execute(() -> {
+            throw new QueryTimeoutException("lock timeout");
+        })).isInstanceOf(QueryTimeoutException.class);
+        assertThat(bulkhead.currentLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void fastWritesGrowTheLimitOnlyWhileItIsUsed() {
+        BookingWriteBulkhead bulkhead = bulkhead(1, 1, 8, 10);
+
+        for (int i = 0; i < 20; i++) {
+            bulkhead.execute(() -> {
+            });
+        }
+
+        // one write at a time keeps only a couple of permits in use
+        assertThat(bulkhead.currentLimit()).isEqualTo(2.5);
+    }
+
+    @Test
+    void fastWritesUnderLoadGrowTheLimitUpToTheMaximum() throws Exception {
+        BookingWriteBulkhead bulkhead = bulkhead(2, 1, 6, 50);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Future<?>> writes = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            writes.add(executor.submit(() -> bulkhead.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(2);
+                running.decrementAndGet();
+            })));
+        }
+        for (Future<?> write : writes) {
+            write.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(bulkhead.currentLimit()).isEqualTo(6);
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(6);
+        assertThat(bulkhead.inFlight()).isZero();
+    }
+
+    @Test
+    void overLimitWritesAreRefusedWith503AndRetryAfter() throws Exception {
+        BookingWriteBulkhead bulkhead = bulkhead(1, 1, 1, 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> bulkhead.execute(() -> {
+            started.countDown();
+            await(finish);
+        }));
+        started.await(5, TimeUnit.SECONDS);
+
+        assertThatThrownBy(() -> bulkhead.execute(() -> {
+        })).isInstanceOfSatisfying(ResponseStatusException.class, ex -> {
+            assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(ex.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        });
+        assertThat(bulkhead.rejected()).isEqualTo(1);
+
+        finish.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void queuedWriteRunsOnceAPermitIsReleased() throws Exception {
+        BookingWriteBulkhead bulkhead = bulkhead(1, 1, 1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> bulkhead.execute(() -> {
+            started.countDown();
+            await(finish);
+        }));
+        started.await(5, TimeUnit.SECONDS);
+
+        Future<String> queued = executor.submit(() -> bulkhead.execute(() -> "done"));
+        finish.countDown();
+
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        holder.get(5, TimeUnit.SECONDS);
+        assertThat(bulkhead.rejected()).isZero();
+    }
+
+    private static BookingWriteBulkhead bulkhead(int initialLimit, int minLimit, int maxLimit, int maxQueued) {
+        return new BookingWriteBulkhead(initialLimit, minLimit, maxLimit, TARGET_LATENCY_MILLIS, 0.5,
+                2_000, maxQueued, new SimpleMeterRegistry());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package dev.temnikov.qa_test.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedTtlCacheTest {
+
+    @Test
+    void overflowEvictsTheOldestWrite() {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(Duration.ofHours(1), 2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isEqualTo(2);
+        assertThat(cache.get("c")).isEqualTo(3);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void rewrittenKeyMovesBehindNewerOnes() {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(Duration.ofHours(1), 2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("a", 10);
+        cache.put("c", 3);
+
+        assertThat(cache.get("a")).isEqualTo(10);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo(3);
+    }
+
+    @Test
+    void expiredEntriesAreHiddenAndSwept() throws InterruptedException {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(Duration.ofMillis(50), 10);
+        cache.put("a", 1);
+        Thread.sleep(100);
+        cache.put("b", 2);
+
+        assertThat(cache.get("a")).isNull();
+        cache.evictExpired();
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("b")).isEqualTo(2);
+    }
+
+    @Test
+    void sweepKeepsAKeyRefreshedAfterItsFirstWrite() throws InterruptedException {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(Duration.ofMillis(200), 10);
+        cache.put("a", 1);
+        Thread.sleep(150);
+        cache.put("a", 2);
+        Thread.sleep(100);
+
+        cache.evictExpired();
+        assertThat(cache.get("a")).isEqualTo(2);
+    }
+
+    @Test
+    void putIfAbsentKeepsTheLiveValue() {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(Duration.ofHours(1), 10);
+
+        assertThat(cache.putIfAbsent("a", 1)).isNull();
+        assertThat(cache.putIfAbsent("a", 2)).isEqualTo(1);
+
+        cache.remove("a", 2);
+        assertThat(cache.get("a")).isEqualTo(1);
+        cache.remove("a", cache.get("a"));
+        assertThat(cache.get("a")).isNull();
+    }
+}
@@ -0,0 +1,93 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.api.dto.ResponseChangesDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeFeedTest {
+
+    private record Row(long id, long version) {
+    }
+
+    private final List<Row> rows = new ArrayList<>();
+    private final List<Row> tombstones = new ArrayList<>();
+
+    @Test
+    void returnsRowsAndDeletionsAfterTheToken() {
+        rows.add(new Row(1, 3));
+        rows.add(new Row(2, 5));
+        rows.add(new Row(3, 9));
+        tombstones.add(new Row(7, 4));
+        tombstones.add(new Row(8, 2));
+
+        ResponseChangesDto<Long> changes = read(2L, 8);
+
+        assertThat(changes.changed()).containsExactly(1L, 2L);
+        assertThat(changes.deleted()).containsExactly(7L);
+        assertThat(changes.next()).isEqualTo(8);
+        assertThat(changes.hasMore()).isFalse();
+    }
+
+    @Test
+    void fullSyncIncludesRowsWithoutVersion() {
+        rows.add(new Row(1, 0));
+        rows.add(new Row(2, 1));
+
+        assertThat(read(null, 1).changed()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void cutAtTheRowLimitNeverSplitsAVersion() {
+        for (long i = 1; i < ChangeFeed.MAX_ROWS; i++) {
+            rows.add(new Row(i, i));
+        }
+        // one transaction wrote the rows around the limit
+        for (long i = 0; i < 10; i++) {
+            rows.add(new Row(ChangeFeed.MAX_ROWS + i, ChangeFeed.MAX_ROWS));
+        }
+        rows.add(new Row(10_000, ChangeFeed.MAX_ROWS + 1));
+
+        ResponseChangesDto<Long> first = read(null, ChangeFeed.MAX_ROWS + 1);
+        assertThat(first.hasMore()).isTrue();
+        assertThat(first.next()).isEqualTo(ChangeFeed.MAX_ROWS);
+        assertThat(first.changed()).hasSize(ChangeFeed.MAX_ROWS + 9);
+
+        ResponseChangesDto<Long> second = read(first.next(), ChangeFeed.MAX_ROWS + 1);
+        assertThat(second.changed()).containsExactly(10_000L);
+        assertThat(second.hasMore()).isFalse();
+    }
+
+    @Test
+    void tokenAheadOfTheWatermarkReadsNothingYet() {
+        rows.add(new Row(1, 12));
+
+        ResponseChangesDto<Long> changes = read(12L, 10);
+
+        assertThat(changes.changed()).isEmpty();
+        assertThat(changes.next()).isEqualTo(12);
+    }
+
+    private ResponseChangesDto<Long> read(Long since, long upTo) {
+        return ChangeFeed.read(
+                since,
+                upTo,
+                (from, limit) -> rows.stream()
+                        .filter(row -> row.version() > from && row.version() <= upTo)
+                        .sorted(Comparator.comparingLong(Row::version).thenComparingLong(Row::id))
+                        .limit(limit.max())
+                        .toList(),
+                version -> rows.stream().filter(row -> row.version() == version).toList(),
+                Row::version,
+                (from, to) -> tombstones.stream()
+                        .filter(row -> row.version() > from && row.version() <= to)
+                        .map(Row::id)
+                        .toList(),
+                Row::id
+        );
+    }
+}
@@ -0,0 +1,133 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.api.dto.ResponseChangesDto;
+import dev.temnikov.qa_test.api.dto.ResponseSessionDto;
+import dev.temnikov.qa_test.entity.Course;
+import dev.temnikov.qa_test.entity.Session;
+import dev.temnikov.qa_test.repository.CourseRepository;
+import dev.temnikov.qa_test.repository.SessionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "changes.mark-interval-millis=50",
+        "changes.tombstone-retention-days=0"
+})
+class SessionChangesTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private ChangeVersions changeVersions;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void feedReportsWritesAndDeletesThenExpiresOldTokens() throws InterruptedException {
+        long start = sessionService.getChanges(null).next();
+
+        Course course = new Course();
+        course.setName("Delta sync");
+        course.setTrainerId(1L);
+        course = courseRepository.save(course);
+        Session session = new Session();
+        session.setCourse(course);
+        session.setStartTime(LocalDateTime.now().plusDays(3).withNano(0));
+        session.setEndTime(session.getStartTime().plusHours(1));
+        Long id = sessionRepository.save(session).getId();
+
+        ResponseChangesDto<ResponseSessionDto> created = awaitChanges(start,
+                changes -> changes.changed().stream().anyMatch(dto -> dto.id().equals(id)));
+        assertThat(created.deleted()).doesNotContain(id);
+
+        sessionService.delete(id);
+        ResponseChangesDto<ResponseSessionDto> deleted = awaitChanges(created.next(),
+                changes -> changes.deleted().contains(id));
+        assertThat(deleted.changed()).extracting(ResponseSessionDto::id).doesNotContain(id);
+
+        // retention 0: every tombstone is old enough to be pruned
+        changeVersions.pruneTombstones();
+
+        assertGone(start, "expired");
+        assertThat(sessionService.getChanges(null).deleted()).doesNotContain(id);
+    }
+
+    @Test
+    void openWriteHoldsWatermarkBackUntilItFinishes() throws Exception {
+        CompletableFuture<Long> allocated = new CompletableFuture<>();
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            allocated.complete(changeVersions.current());
+            try {
+                finish.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        long version = allocated.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        // a later write commits while the first one is still open
+        long later = transactionTemplate.execute(status -> changeVersions.current());
+        changeVersions.mark();
+        assertThat(changeVersions.committedWatermark()).isLessThan(version).isLessThan(later);
+
+        finish.countDown();
+        writer.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        changeVersions.mark();
+        assertThat(changeVersions.committedWatermark()).isGreaterThanOrEqualTo(later);
+    }
+
+    @Test
+    void tokenThatWasNeverIssuedIsGone() {
+        assertGone(Long.MAX_VALUE / 2, "Unknown");
+    }
+
+    private void assertGone(long since, String reason) {
+        assertThatThrownBy(() -> sessionService.getChanges(since))
+                .isInstanceOfSatisfying(ResponseStatusException.class, ex -> {
+                    assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.GONE);
+                    assertThat(ex.getReason()).contains(reason);
+                });
+    }
+
+    /**
+     * Writes only show up once the watermark has passed them.
+     */
+    private ResponseChangesDto<ResponseSessionDto> awaitChanges(
+            long since,
+            Predicate<ResponseChangesDto<ResponseSessionDto>> condition
+    ) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            ResponseChangesDto<ResponseSessionDto> changes = sessionService.getChanges(since);
+            if (condition.test(changes)) {
+                return changes;
+            }
+            assertThat(System.currentTimeMillis()).as("change visible in time").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
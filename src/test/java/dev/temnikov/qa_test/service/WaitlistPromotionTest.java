@@ -0,0 +1,157 @@
+package dev.temnikov.qa_test.service;
+
+import dev.temnikov.qa_test.api.dto.RequestBookingDto;
+import dev.temnikov.qa_test.api.dto.ResponseBookingDto;
+import dev.temnikov.qa_test.entity.BookingStatus;
+import dev.temnikov.qa_test.entity.Course;
+import dev.temnikov.qa_test.entity.Session;
+import dev.temnikov.qa_test.entity.User;
+import dev.temnikov.qa_test.entity.UserRole;
+import dev.temnikov.qa_test.repository.BookingRepository;
+import dev.temnikov.qa_test.repository.CourseRepository;
+import dev.temnikov.qa_test.repository.SessionRepository;
+import dev.temnikov.qa_test.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class WaitlistPromotionTest {
+
+    private static final int CAPACITY = 4;
+    private static final int WAITLISTED = 6;
+
+    @Autowired
+    private BookingCommandService bookingCommandService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private final ExecutorService clients = Executors.newFixedThreadPool(CAPACITY);
+
+    private Session session;
+    private final List<User> holders = new ArrayList<>();
+    private final List<ResponseBookingDto> held = new ArrayList<>();
+    private final List<ResponseBookingDto> waitlisted = new ArrayList<>();
+
+    @BeforeEach
+    void fillSessionAndWaitlist() {
+        User trainer = userRepository.save(user(UserRole.TRAINER));
+        Course course = new Course();
+        course.setName("Course " + UUID.randomUUID());
+        course.setTrainerId(trainer.getId());
+        course = courseRepository.save(course);
+
+        Session newSession = new Session();
+        newSession.setCourse(course);
+        newSession.setStartTime(LocalDateTime.now().plusDays(7).withNano(0));
+        newSession.setEndTime(newSession.getStartTime().plusHours(1));
+        newSession.setCapacity(CAPACITY);
+        session = sessionRepository.save(newSession);
+
+        for (int i = 0; i < CAPACITY; i++) {
+            User holder = userRepository.save(user(UserRole.USER));
+            holders.add(holder);
+            held.add(book(holder, false));
+        }
+        for (int i = 0; i < WAITLISTED; i++) {
+            ResponseBookingDto booking = book(userRepository.save(user(UserRole.USER)), true);
+            assertThat(booking.status()).isEqualTo(BookingStatus.WAITLISTED.name());
+            assertThat(booking.waitlistPosition()).isEqualTo(i + 1);
+            waitlisted.add(booking);
+        }
+    }
+
+    @AfterEach
+    void stopClients() throws InterruptedException {
+        clients.shutdownNow();
+        clients.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void cancelPromotesTheOldestWaitlistedBooking() {
+        bookingService.cancel(held.get(0).id(), holders.get(0));
+
+        assertThat(statusOf(waitlisted.get(0))).isEqualTo(BookingStatus.PENDING);
+        assertThat(bookingRepository.findById(waitlisted.get(0).id()).orElseThrow().getHoldExpiresAt()).isNotNull();
+        for (ResponseBookingDto later : waitlisted.subList(1, WAITLISTED)) {
+            assertThat(statusOf(later)).isEqualTo(BookingStatus.WAITLISTED);
+        }
+        assertThat(bookingService.getById(waitlisted.get(1).id()).waitlistPosition()).isEqualTo(1);
+        assertThat(bookedCount()).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void concurrentCancelsNeverOverPromote() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseBookingDto>> cancels = new ArrayList<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            ResponseBookingDto booking = held.get(i);
+            User holder = holders.get(i);
+            cancels.add(clients.submit(() -> {
+                start.await();
+                return bookingService.cancel(booking.id(), holder);
+            }));
+        }
+        start.countDown();
+        for (Future<ResponseBookingDto> cancel : cancels) {
+            assertThat(cancel.get(30, TimeUnit.SECONDS).status()).isEqualTo(BookingStatus.CANCELLED.name());
+        }
+
+        // exactly the oldest CAPACITY waitlisted bookings got the freed seats
+        for (int i = 0; i < WAITLISTED; i++) {
+            BookingStatus expected = i < CAPACITY ? BookingStatus.PENDING : BookingStatus.WAITLISTED;
+            assertThat(statusOf(waitlisted.get(i))).as("waitlisted #%d", i + 1).isEqualTo(expected);
+        }
+        assertThat(bookingRepository.countBySessionIdAndStatusIn(session.getId(), BookingStatus.ACTIVE))
+                .isEqualTo(CAPACITY);
+        assertThat(bookedCount()).isEqualTo(CAPACITY);
+    }
+
+    private BookingStatus statusOf(ResponseBookingDto booking) {
+        return bookingRepository.findById(booking.id()).orElseThrow().getStatus();
+    }
+
+    private int bookedCount() {
+        return sessionRepository.findById(session.getId()).orElseThrow().getBookedCount();
+    }
+
+    private ResponseBookingDto book(User user, boolean joinWaitlist) {
+        return bookingCommandService.create(new RequestBookingDto(null, session.getId(), null), user, joinWaitlist).join();
+    }
+
+    private static User user(UserRole role) {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setFullName("Test " + role);
+        user.setRole(role);
+        user.setPassword("{noop}pw");
+        return user;
+    }
+}